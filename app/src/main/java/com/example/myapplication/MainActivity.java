@@ -11,6 +11,10 @@ import androidx.navigation.ui.AppBarConfiguration;
 import androidx.navigation.ui.NavigationUI;
 
 import com.example.myapplication.databinding.ActivityMainBinding;
+import com.example.myapplication.sampling.CellSamplingService;
+import com.example.myapplication.services.WebSocketService;
+
+import java.io.File;
 
 public class MainActivity extends AppCompatActivity {
 
@@ -32,6 +36,21 @@ public class MainActivity extends AppCompatActivity {
         NavController navController = Navigation.findNavController(this, R.id.nav_host_fragment_activity_main);
         NavigationUI.setupActionBarWithNavController(this, navController, appBarConfiguration);
         NavigationUI.setupWithNavController(binding.navView, navController);
+
+        WebSocketService webSocketService = WebSocketService.getInstance();
+        if (webSocketService.getTelemetrySpool() == null) {
+            webSocketService.enableOfflineSpool(new File(getFilesDir(), "telemetry.spool"), 4 * 1024 * 1024);
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        // Leaving the app stops background sampling unless a stream is running
+        Boolean streaming = WebSocketService.getInstance().getIsStreaming().getValue();
+        if (isFinishing() && (streaming == null || !streaming)) {
+            CellSamplingService.stop(this);
+        }
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.example.myapplication.camera;
+
+import java.util.ArrayDeque;
+
+// Small pool of equally sized byte arrays. When the requested size changes (e.g. the
+// analysis resolution changed) the pooled arrays are dropped and the pool re-fills at
+// the new size.
+public class ByteArrayPool {
+    private final int maxPooled;
+    private final ArrayDeque<byte[]> free = new ArrayDeque<>();
+    private int bufferSize = -1;
+
+    public ByteArrayPool(int maxPooled) {
+        this.maxPooled = maxPooled;
+    }
+
+    public synchronized byte[] acquire(int size) {
+        if (size != bufferSize) {
+            free.clear();
+            bufferSize = size;
+        }
+        byte[] buffer = free.pollFirst();
+        return buffer != null ? buffer : new byte[size];
+    }
+
+    public synchronized void release(byte[] buffer) {
+        if (buffer != null && buffer.length == bufferSize && free.size() < maxPooled) {
+            free.addFirst(buffer);
+        }
+    }
+
+    public synchronized int getPooledCount() {
+        return free.size();
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.myapplication.camera;
+
+// NV21 copy of a camera frame taken on the analyzer thread so the ImageProxy can be closed
+// immediately. The nv21 array belongs to the encoder's pool; return it with FrameEncoder.release().
+// motionSignature is the MotionGate signature to mark as sent once the frame reaches the socket.
+public class CapturedFrame {
+    public final byte[] nv21;
+    public final int width;
+    public final int height;
+    public final int rotationDegrees;
+    public final ImageColorMode colorMode;
+    public final int sequence;
+    public final long captureTimeMs;
+    public final long captureNanos;
+    public final int[] motionSignature;
+
+    public CapturedFrame(byte[] nv21, int width, int height, int rotationDegrees, ImageColorMode colorMode,
+                         int sequence, long captureTimeMs, long captureNanos, int[] motionSignature) {
+        this.nv21 = nv21;
+        this.width = width;
+        this.height = height;
+        this.rotationDegrees = rotationDegrees;
+        this.colorMode = colorMode;
+        this.sequence = sequence;
+        this.captureTimeMs = captureTimeMs;
+        this.captureNanos = captureNanos;
+        this.motionSignature = motionSignature;
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.myapplication.camera;
+
+import android.graphics.ImageFormat;
+import android.graphics.Rect;
+import android.graphics.YuvImage;
+import androidx.camera.core.ImageProxy;
+
+// Turns CameraX frames into JPEG in two steps: capture() copies (and crops/scales) the YUV
+// planes into a pooled NV21 buffer so the ImageProxy can be released right away, and
+// compress() encodes that buffer to JPEG in a single pass. capture() must only be called from
+// one thread (the camera analyzer) and compress() from one thread (the encoder stage).
+public class FrameEncoder {
+    private static final int INITIAL_JPEG_CAPACITY = 64 * 1024;
+    private static final int POOLED_FRAMES = 4; // Capturing + queued for encode + encoding
+
+    private final ReusableByteArrayOutputStream jpegOut = new ReusableByteArrayOutputStream(INITIAL_JPEG_CAPACITY);
+    private final Rect cropRect = new Rect();
+    private final Yuv420Converter converter = new Yuv420Converter();
+    private final ByteArrayPool bufferPool;
+    private final FrameGeometry geometry = new FrameGeometry();
+    private volatile FrameTransform transform = FrameTransform.NONE;
+    private volatile ImageColorMode colorMode = ImageColorMode.COLOR;
+
+    private volatile long lastEncodeTimeNanos;
+    private volatile long totalEncodeTimeNanos;
+    private volatile long encodedFrames;
+
+    public FrameEncoder() {
+        this(new ByteArrayPool(POOLED_FRAMES));
+    }
+
+    public FrameEncoder(ByteArrayPool bufferPool) {
+        this.bufferPool = bufferPool;
+    }
+
+    public CapturedFrame capture(ImageProxy imageProxy, int sequence, long captureTimeMs, int[] motionSignature) {
+        long captureNanos = System.nanoTime();
+        int sourceWidth = imageProxy.getWidth();
+        int sourceHeight = imageProxy.getHeight();
+        transform.apply(sourceWidth, sourceHeight, geometry);
+        int width = geometry.outputWidth;
+        int height = geometry.outputHeight;
+        ImageColorMode mode = colorMode;
+        ImageProxy.PlaneProxy[] planes = imageProxy.getPlanes();
+        byte[] nv21 = bufferPool.acquire(Yuv420Converter.nv21Size(width, height));
+        if (mode == ImageColorMode.GRAYSCALE) {
+            converter.lumaToNv21(planes[0].getBuffer(), planes[0].getRowStride(), planes[0].getPixelStride(),
+                    sourceWidth, sourceHeight, geometry, nv21);
+        } else {
+            converter.toNv21(planes[0].getBuffer(), planes[0].getRowStride(), planes[0].getPixelStride(),
+                    planes[1].getBuffer(), planes[2].getBuffer(), planes[1].getRowStride(), planes[1].getPixelStride(),
+                    sourceWidth, sourceHeight, geometry, nv21);
+        }
+        return new CapturedFrame(nv21, width, height, imageProxy.getImageInfo().getRotationDegrees(), mode,
+                sequence, captureTimeMs, captureNanos, motionSignature);
+    }
+
+    // Returns the JPEG length; the bytes are valid in getJpegBuffer() until the next call.
+    public int compress(CapturedFrame frame, int quality) {
+        long start = System.nanoTime();
+        YuvImage yuvImage = new YuvImage(frame.nv21, ImageFormat.NV21, frame.width, frame.height, null);
+        cropRect.set(0, 0, frame.width, frame.height);
+        jpegOut.reset();
+        yuvImage.compressToJpeg(cropRect, quality, jpegOut);
+
+        long elapsed = System.nanoTime() - start;
+        lastEncodeTimeNanos = elapsed;
+        totalEncodeTimeNanos += elapsed;
+        encodedFrames++;
+        return jpegOut.size();
+    }
+
+    public void release(CapturedFrame frame) {
+        bufferPool.release(frame.nv21);
+    }
+
+    // May be changed from any thread; applies from the next captured frame.
+    public void setTransform(FrameTransform transform) {
+        this.transform = transform != null ? transform : FrameTransform.NONE;
+    }
+
+    public FrameTransform getTransform() {
+        return transform;
+    }
+
+    // May be changed from any thread; applies from the next captured frame.
+    public void setColorMode(ImageColorMode colorMode) {
+        this.colorMode = colorMode;
+    }
+
+    public ImageColorMode getColorMode() {
+        return colorMode;
+    }
+
+    public byte[] getJpegBuffer() {
+        return jpegOut.getBuffer();
+    }
+
+    public int getJpegLength() {
+        return jpegOut.size();
+    }
+
+    public long getLastEncodeTimeMicros() {
+        return lastEncodeTimeNanos / 1000;
+    }
+
+    public long getAverageEncodeTimeMicros() {
+        long frames = encodedFrames;
+        return frames == 0 ? 0 : totalEncodeTimeNanos / frames / 1000;
+    }
+
+    public long getEncodedFrames() {
+        return encodedFrames;
+    }
+}
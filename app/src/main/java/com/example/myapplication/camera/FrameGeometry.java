@@ -0,0 +1,17 @@
+package com.example.myapplication.camera;
+
+// Source crop and output size for one frame, in unrotated buffer coordinates. All values are even.
+public class FrameGeometry {
+    public int cropLeft;
+    public int cropTop;
+    public int cropWidth;
+    public int cropHeight;
+    public int outputWidth;
+    public int outputHeight;
+
+    public boolean isIdentity(int sourceWidth, int sourceHeight) {
+        return cropLeft == 0 && cropTop == 0
+                && cropWidth == sourceWidth && cropHeight == sourceHeight
+                && outputWidth == sourceWidth && outputHeight == sourceHeight;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.myapplication.camera;
+
+// Immutable region-of-interest and output size limit applied to camera frames before encoding.
+// The region is given as fractions of the unrotated analysis buffer; a max dimension of 0
+// means unlimited. The aspect ratio of the region is preserved when scaling down.
+public final class FrameTransform {
+    public static final FrameTransform NONE = new FrameTransform(0f, 0f, 1f, 1f, 0, 0);
+
+    private static final int MIN_DIMENSION = 16;
+
+    private final float left;
+    private final float top;
+    private final float right;
+    private final float bottom;
+    private final int maxWidth;
+    private final int maxHeight;
+
+    public FrameTransform(float left, float top, float right, float bottom, int maxWidth, int maxHeight) {
+        if (left < 0f || top < 0f || right > 1f || bottom > 1f || left >= right || top >= bottom) {
+            throw new IllegalArgumentException("Region of interest must lie within [0, 1]");
+        }
+        if (maxWidth < 0 || maxHeight < 0) {
+            throw new IllegalArgumentException("Max output size cannot be negative");
+        }
+        this.left = left;
+        this.top = top;
+        this.right = right;
+        this.bottom = bottom;
+        this.maxWidth = maxWidth;
+        this.maxHeight = maxHeight;
+    }
+
+    public static FrameTransform scaledTo(int maxWidth, int maxHeight) {
+        return new FrameTransform(0f, 0f, 1f, 1f, maxWidth, maxHeight);
+    }
+
+    public FrameTransform withRegionOfInterest(float left, float top, float right, float bottom) {
+        return new FrameTransform(left, top, right, bottom, maxWidth, maxHeight);
+    }
+
+    public FrameTransform withMaxSize(int maxWidth, int maxHeight) {
+        return new FrameTransform(left, top, right, bottom, maxWidth, maxHeight);
+    }
+
+    public void apply(int sourceWidth, int sourceHeight, FrameGeometry geometry) {
+        int cropLeft = even((int) (left * sourceWidth));
+        int cropTop = even((int) (top * sourceHeight));
+        int cropRight = Math.min(sourceWidth, even((int) Math.ceil(right * sourceWidth) + 1));
+        int cropBottom = Math.min(sourceHeight, even((int) Math.ceil(bottom * sourceHeight) + 1));
+        int cropWidth = Math.max(even(Math.min(MIN_DIMENSION, sourceWidth - cropLeft)), cropRight - cropLeft);
+        int cropHeight = Math.max(even(Math.min(MIN_DIMENSION, sourceHeight - cropTop)), cropBottom - cropTop);
+
+        double scale = 1.0;
+        if (maxWidth > 0 && cropWidth > maxWidth) {
+            scale = Math.min(scale, (double) maxWidth / cropWidth);
+        }
+        if (maxHeight > 0 && cropHeight > maxHeight) {
+            scale = Math.min(scale, (double) maxHeight / cropHeight);
+        }
+
+        geometry.cropLeft = cropLeft;
+        geometry.cropTop = cropTop;
+        geometry.cropWidth = cropWidth;
+        geometry.cropHeight = cropHeight;
+        geometry.outputWidth = Math.max(2, even((int) (cropWidth * scale)));
+        geometry.outputHeight = Math.max(2, even((int) (cropHeight * scale)));
+    }
+
+    private static int even(int value) {
+        return value & ~1;
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.myapplication.camera;
+
+public enum ImageColorMode {
+    COLOR,     // Full YUV frame
+    GRAYSCALE  // Y plane only; chroma is sent as a constant neutral value and compresses to almost nothing
+}
@@ -0,0 +1,141 @@
+package com.example.myapplication.camera;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Suppresses near-duplicate frames. Each frame is reduced to a grid of block-mean luma values
+// (sampling every SAMPLE_STEP-th pixel), and the mean absolute difference against the last
+// sent frame's grid is compared with a threshold. A keyframe is forced periodically so the
+// server still sees a static scene. Call isSignificant(), keep the frame's signature() and pass
+// it to markSent() once the frame has actually been handed to the socket, which may happen on
+// another thread. Frames dropped on the way never become the reference.
+public class MotionGate {
+    public static final int DEFAULT_THRESHOLD = 3; // Mean luma difference, 0-255 scale
+    public static final long DEFAULT_KEYFRAME_INTERVAL_MS = 10000;
+
+    private static final int GRID_COLUMNS = 16;
+    private static final int GRID_ROWS = 12;
+    private static final int SAMPLE_STEP = 4;
+
+    private final int[] sums = new int[GRID_COLUMNS * GRID_ROWS];
+    private final int[] counts = new int[GRID_COLUMNS * GRID_ROWS];
+    private final int[] signature = new int[GRID_COLUMNS * GRID_ROWS];
+    private final int[] lastSentSignature = new int[GRID_COLUMNS * GRID_ROWS];
+    private boolean hasLastSent = false;
+    private long lastSentTimeMs;
+    private int lastDifference;
+
+    private volatile boolean enabled = true;
+    private volatile int threshold = DEFAULT_THRESHOLD;
+    private volatile long keyframeIntervalMs = DEFAULT_KEYFRAME_INTERVAL_MS;
+
+    private final AtomicLong framesCaptured = new AtomicLong();
+    private final AtomicLong framesSuppressed = new AtomicLong();
+    private final AtomicLong framesSent = new AtomicLong();
+
+    public synchronized boolean isSignificant(ByteBuffer yPlane, int rowStride, int pixelStride, int width, int height, long nowMs) {
+        framesCaptured.incrementAndGet();
+        if (!enabled) {
+            lastDifference = Integer.MAX_VALUE;
+            return true;
+        }
+        computeSignature(yPlane, rowStride, pixelStride, width, height);
+        if (!hasLastSent || nowMs - lastSentTimeMs >= keyframeIntervalMs) {
+            lastDifference = Integer.MAX_VALUE;
+            return true;
+        }
+
+        int total = 0;
+        for (int i = 0; i < signature.length; i++) {
+            total += Math.abs(signature[i] - lastSentSignature[i]);
+        }
+        lastDifference = total / signature.length;
+        if (lastDifference >= threshold) {
+            return true;
+        }
+        framesSuppressed.incrementAndGet();
+        return false;
+    }
+
+    // Copy of the signature computed by the last isSignificant() call.
+    public synchronized int[] signature() {
+        return signature.clone();
+    }
+
+    // Records the signature computed by the last isSignificant() call as the reference frame.
+    public synchronized void markSent(long nowMs) {
+        markSent(signature, nowMs);
+    }
+
+    // Records a frame's signature, taken with signature(), as the reference frame.
+    public synchronized void markSent(int[] sentSignature, long nowMs) {
+        System.arraycopy(sentSignature, 0, lastSentSignature, 0, lastSentSignature.length);
+        hasLastSent = true;
+        lastSentTimeMs = nowMs;
+        framesSent.incrementAndGet();
+    }
+
+    // Forces the next frame through, e.g. after a reconnect.
+    public synchronized void reset() {
+        hasLastSent = false;
+    }
+
+    private void computeSignature(ByteBuffer yPlane, int rowStride, int pixelStride, int width, int height) {
+        Arrays.fill(sums, 0);
+        Arrays.fill(counts, 0);
+        int base = yPlane.position();
+        for (int row = 0; row < height; row += SAMPLE_STEP) {
+            int gridRow = row * GRID_ROWS / height;
+            int rowStart = base + row * rowStride;
+            for (int col = 0; col < width; col += SAMPLE_STEP) {
+                int cell = gridRow * GRID_COLUMNS + col * GRID_COLUMNS / width;
+                sums[cell] += yPlane.get(rowStart + col * pixelStride) & 0xFF;
+                counts[cell]++;
+            }
+        }
+        for (int i = 0; i < signature.length; i++) {
+            signature[i] = counts[i] == 0 ? 0 : sums[i] / counts[i];
+        }
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setThreshold(int threshold) {
+        this.threshold = threshold;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public void setKeyframeIntervalMs(long keyframeIntervalMs) {
+        this.keyframeIntervalMs = keyframeIntervalMs;
+    }
+
+    public long getKeyframeIntervalMs() {
+        return keyframeIntervalMs;
+    }
+
+    public int getLastDifference() {
+        return lastDifference;
+    }
+
+    public long getFramesCaptured() {
+        return framesCaptured.get();
+    }
+
+    public long getFramesSuppressed() {
+        return framesSuppressed.get();
+    }
+
+    public long getFramesSent() {
+        return framesSent.get();
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.myapplication.camera;
+
+import java.io.ByteArrayOutputStream;
+
+// ByteArrayOutputStream that exposes its backing array so callers can read the
+// written bytes without the copy made by toByteArray(). The array is kept across reset().
+public class ReusableByteArrayOutputStream extends ByteArrayOutputStream {
+
+    public ReusableByteArrayOutputStream(int initialCapacity) {
+        super(initialCapacity);
+    }
+
+    public byte[] getBuffer() {
+        return buf;
+    }
+}
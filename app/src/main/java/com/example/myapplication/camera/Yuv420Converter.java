@@ -0,0 +1,218 @@
+package com.example.myapplication.camera;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// Converts YUV_420_888 planes to NV21 (Y plane followed by interleaved V/U) honouring the
+// row and pixel strides of every plane. Plane buffers are only read and their positions left
+// unchanged. Not thread-safe: the column lookup tables and the layout detected for the
+// current format are reused between frames.
+public class Yuv420Converter {
+    private static final byte NEUTRAL_CHROMA = (byte) 128;
+
+    private int[] lumaColumns = new int[0];
+    private int[] chromaColumns = new int[0];
+    // Format the interleaved-VU check last ran for; an ImageReader keeps its plane layout
+    private int checkedRowStride = -1;
+    private int checkedWidth;
+    private int checkedHeight;
+    private int checkedUCapacity;
+    private int checkedVCapacity;
+    private boolean checkedInterleaved;
+
+    public static int nv21Size(int width, int height) {
+        return width * height + 2 * chromaWidth(width) * chromaHeight(height);
+    }
+
+    private static int chromaWidth(int width) {
+        return (width + 1) / 2;
+    }
+
+    private static int chromaHeight(int height) {
+        return (height + 1) / 2;
+    }
+
+    // Writes the NV21 image into out, which must hold at least nv21Size(width, height) bytes.
+    public void toNv21(ByteBuffer yPlane, int yRowStride, int yPixelStride,
+                       ByteBuffer uPlane, ByteBuffer vPlane, int uvRowStride, int uvPixelStride,
+                       int width, int height, byte[] out) {
+        copyLuma(yPlane, yRowStride, yPixelStride, width, height, out);
+        copyChroma(uPlane, vPlane, uvRowStride, uvPixelStride, width, height, out, width * height);
+    }
+
+    // Crops and nearest-neighbour scales while converting. out must hold
+    // nv21Size(geometry.outputWidth, geometry.outputHeight) bytes.
+    public void toNv21(ByteBuffer yPlane, int yRowStride, int yPixelStride,
+                       ByteBuffer uPlane, ByteBuffer vPlane, int uvRowStride, int uvPixelStride,
+                       int width, int height, FrameGeometry geometry, byte[] out) {
+        if (geometry.isIdentity(width, height)) {
+            toNv21(yPlane, yRowStride, yPixelStride, uPlane, vPlane, uvRowStride, uvPixelStride, width, height, out);
+            return;
+        }
+
+        int outWidth = geometry.outputWidth;
+        int outHeight = geometry.outputHeight;
+        int outChromaWidth = chromaWidth(outWidth);
+        int outChromaHeight = chromaHeight(outHeight);
+        copyLumaScaled(yPlane, yRowStride, yPixelStride, geometry, out);
+
+        if (chromaColumns.length < outChromaWidth) {
+            chromaColumns = new int[outChromaWidth];
+        }
+        for (int col = 0; col < outChromaWidth; col++) {
+            chromaColumns[col] = ((geometry.cropLeft + 2 * col * geometry.cropWidth / outWidth) / 2) * uvPixelStride;
+        }
+
+        int uBase = uPlane.position();
+        int vBase = vPlane.position();
+        int o = outWidth * outHeight;
+        for (int row = 0; row < outChromaHeight; row++) {
+            int rowStart = ((geometry.cropTop + 2 * row * geometry.cropHeight / outHeight) / 2) * uvRowStride;
+            for (int col = 0; col < outChromaWidth; col++) {
+                int index = rowStart + chromaColumns[col];
+                out[o++] = vPlane.get(vBase + index);
+                out[o++] = uPlane.get(uBase + index);
+            }
+        }
+    }
+
+    // Grayscale variant: copies (and crops/scales) only the Y plane and fills the chroma
+    // with the neutral value, so the U and V planes are never read.
+    public void lumaToNv21(ByteBuffer yPlane, int yRowStride, int yPixelStride,
+                           int width, int height, FrameGeometry geometry, byte[] out) {
+        int outWidth = geometry.outputWidth;
+        int outHeight = geometry.outputHeight;
+        if (geometry.isIdentity(width, height)) {
+            copyLuma(yPlane, yRowStride, yPixelStride, width, height, out);
+        } else {
+            copyLumaScaled(yPlane, yRowStride, yPixelStride, geometry, out);
+        }
+        Arrays.fill(out, outWidth * outHeight, nv21Size(outWidth, outHeight), NEUTRAL_CHROMA);
+    }
+
+    private void copyLumaScaled(ByteBuffer yPlane, int rowStride, int pixelStride, FrameGeometry geometry, byte[] out) {
+        int outWidth = geometry.outputWidth;
+        int outHeight = geometry.outputHeight;
+        if (lumaColumns.length < outWidth) {
+            lumaColumns = new int[outWidth];
+        }
+        for (int col = 0; col < outWidth; col++) {
+            lumaColumns[col] = (geometry.cropLeft + col * geometry.cropWidth / outWidth) * pixelStride;
+        }
+
+        int base = yPlane.position();
+        int o = 0;
+        for (int row = 0; row < outHeight; row++) {
+            int rowStart = base + (geometry.cropTop + row * geometry.cropHeight / outHeight) * rowStride;
+            for (int col = 0; col < outWidth; col++) {
+                out[o++] = yPlane.get(rowStart + lumaColumns[col]);
+            }
+        }
+    }
+
+    private void copyLuma(ByteBuffer yPlane, int rowStride, int pixelStride, int width, int height, byte[] out) {
+        int base = yPlane.position();
+        if (pixelStride == 1 && rowStride == width) {
+            yPlane.get(out, 0, width * height);
+        } else if (pixelStride == 1) {
+            for (int row = 0; row < height; row++) {
+                yPlane.position(base + row * rowStride);
+                yPlane.get(out, row * width, width);
+            }
+        } else {
+            int o = 0;
+            for (int row = 0; row < height; row++) {
+                int rowStart = base + row * rowStride;
+                for (int col = 0; col < width; col++) {
+                    out[o++] = yPlane.get(rowStart + col * pixelStride);
+                }
+            }
+        }
+        yPlane.position(base);
+    }
+
+    private void copyChroma(ByteBuffer uPlane, ByteBuffer vPlane, int rowStride, int pixelStride,
+                            int width, int height, byte[] out, int offset) {
+        int chromaWidth = chromaWidth(width);
+        int chromaHeight = chromaHeight(height);
+        int uBase = uPlane.position();
+        int vBase = vPlane.position();
+
+        if (pixelStride == 2 && isInterleavedVu(uPlane, vPlane, rowStride, chromaWidth, chromaHeight)) {
+            // The V plane already is the NV21 VU layout, one byte short of the final U sample per row.
+            int rowBytes = 2 * chromaWidth - 1;
+            if (rowStride == 2 * chromaWidth) {
+                int total = rowStride * (chromaHeight - 1) + rowBytes;
+                vPlane.get(out, offset, total);
+            } else {
+                for (int row = 0; row < chromaHeight; row++) {
+                    vPlane.position(vBase + row * rowStride);
+                    vPlane.get(out, offset + row * 2 * chromaWidth, rowBytes);
+                }
+            }
+            for (int row = 0; row < chromaHeight; row++) {
+                out[offset + (row + 1) * 2 * chromaWidth - 1] = uPlane.get(uBase + row * rowStride + rowBytes - 1);
+            }
+            vPlane.position(vBase);
+            return;
+        }
+
+        int o = offset;
+        for (int row = 0; row < chromaHeight; row++) {
+            int rowStart = row * rowStride;
+            for (int col = 0; col < chromaWidth; col++) {
+                int index = rowStart + col * pixelStride;
+                out[o++] = vPlane.get(vBase + index);
+                out[o++] = uPlane.get(uBase + index);
+            }
+        }
+    }
+
+    // True when the V plane starts one byte before the U plane in the same memory, i.e. the
+    // camera delivered semi-planar VU data. Array-backed views are compared directly. Direct
+    // buffers have no visible address, so the first frame of each format is checked by
+    // comparing every U sample with the byte after the matching V sample; the result is reused
+    // while the format stays the same. A flat frame, e.g. the first dark frames after the
+    // camera opens, proves nothing and is not cached.
+    private boolean isInterleavedVu(ByteBuffer uPlane, ByteBuffer vPlane, int rowStride, int chromaWidth, int chromaHeight) {
+        int uBase = uPlane.position();
+        int vBase = vPlane.position();
+        int lastIndex = rowStride * (chromaHeight - 1) + 2 * (chromaWidth - 1);
+        if (vPlane.limit() - vBase <= lastIndex || uPlane.limit() - uBase <= lastIndex) {
+            return false;
+        }
+        if (uPlane.hasArray() && vPlane.hasArray()) {
+            return uPlane.array() == vPlane.array()
+                    && vPlane.arrayOffset() + vBase + 1 == uPlane.arrayOffset() + uBase;
+        }
+        if (rowStride == checkedRowStride && chromaWidth == checkedWidth && chromaHeight == checkedHeight
+                && uPlane.capacity() == checkedUCapacity && vPlane.capacity() == checkedVCapacity) {
+            return checkedInterleaved;
+        }
+
+        boolean matches = true;
+        boolean flat = true;
+        byte first = uPlane.get(uBase);
+        for (int row = 0; row < chromaHeight && matches; row++) {
+            int rowStart = row * rowStride;
+            for (int col = 0; col < chromaWidth - 1; col++) {
+                int index = rowStart + 2 * col;
+                byte u = uPlane.get(uBase + index);
+                if (vPlane.get(vBase + index + 1) != u) {
+                    matches = false;
+                    break;
+                }
+                flat &= u == first;
+            }
+        }
+        if (!matches || !flat) {
+            checkedRowStride = rowStride;
+            checkedWidth = chromaWidth;
+            checkedHeight = chromaHeight;
+            checkedUCapacity = uPlane.capacity();
+            checkedVCapacity = vPlane.capacity();
+            checkedInterleaved = matches;
+        }
+        return matches && !flat;
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.myapplication.cell;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Reference decoder for CellBinaryEncoder output. Like the encoder it keeps the connection's
+// string table, so messages must be decoded in the order they were sent. Throws
+// IllegalArgumentException on malformed input. Not thread-safe.
+public class CellBinaryDecoder {
+    private final List<String> strings = new ArrayList<>();
+    private byte[] data;
+    private int position;
+    private int end;
+
+    // Returns a PrimaryCellReport or a NeighborCellReport.
+    public Object decode(byte[] message) {
+        data = message;
+        position = 0;
+        end = message.length;
+        if (readByte() != CellBinaryFormat.MAGIC) {
+            throw new IllegalArgumentException("Not a binary cell message");
+        }
+        int version = readByte();
+        if (version != CellBinaryFormat.VERSION) {
+            throw new IllegalArgumentException("Unsupported version " + version);
+        }
+        int kind = readByte();
+        long timestampMs = CellBinaryFormat.unzigzag(readVarint());
+        Object report;
+        if (kind == CellBinaryFormat.KIND_PRIMARY) {
+            int simCount = (int) readVarint();
+            int entries = (int) readVarint();
+            List<SimCellReport> sims = new ArrayList<>(entries);
+            for (int i = 0; i < entries; i++) {
+                int simSlot = (int) readVarint();
+                String carrier = readString();
+                String mcc = readString();
+                String mnc = readString();
+                CellMeasurement cell = readByte() != 0 ? readCell() : null;
+                sims.add(new SimCellReport(simSlot, carrier, mcc, mnc, cell));
+            }
+            report = new PrimaryCellReport(timestampMs, simCount, sims);
+        } else if (kind == CellBinaryFormat.KIND_NEIGHBORS) {
+            int count = (int) readVarint();
+            List<CellMeasurement> neighbors = new ArrayList<>(Math.min(count, end));
+            for (int i = 0; i < count; i++) {
+                neighbors.add(readCell());
+            }
+            report = new NeighborCellReport(timestampMs, neighbors);
+        } else {
+            throw new IllegalArgumentException("Unknown message kind " + kind);
+        }
+        if (position != end) {
+            throw new IllegalArgumentException("Trailing bytes in cell message");
+        }
+        return report;
+    }
+
+    private CellMeasurement readCell() {
+        RadioType type = RadioType.fromCode(readByte());
+        String carrier = readString();
+        String mcc = readString();
+        String mnc = readString();
+        switch (type) {
+            case LTE:
+                return CellMeasurement.lte(carrier, mcc, mnc, readInt(), readInt(), readInt(), readInt(), readInt(),
+                        readInt());
+            case NR: {
+                int pci = readInt();
+                int tac = readInt();
+                long encodedNci = readVarint();
+                long nci = encodedNci == 0 ? CellMeasurement.UNAVAILABLE_LONG : CellBinaryFormat.unzigzag(encodedNci - 1);
+                return CellMeasurement.nr(carrier, mcc, mnc, pci, tac, nci, readInt(), readInt());
+            }
+            case GSM:
+                return CellMeasurement.gsm(carrier, mcc, mnc, readInt(), readInt(), readInt());
+            case WCDMA:
+                return CellMeasurement.wcdma(carrier, mcc, mnc, readInt(), readInt(), readInt());
+            default:
+                return new CellMeasurement(RadioType.UNKNOWN, carrier, mcc, mnc, CellMeasurement.UNAVAILABLE,
+                        CellMeasurement.UNAVAILABLE, CellMeasurement.UNAVAILABLE, CellMeasurement.UNAVAILABLE_LONG,
+                        CellMeasurement.UNAVAILABLE, CellMeasurement.UNAVAILABLE, CellMeasurement.UNAVAILABLE,
+                        CellMeasurement.UNAVAILABLE, CellMeasurement.UNAVAILABLE, CellMeasurement.UNAVAILABLE,
+                        CellMeasurement.UNAVAILABLE, CellMeasurement.UNAVAILABLE);
+        }
+    }
+
+    private int readInt() {
+        long value = readVarint();
+        return value == 0 ? CellMeasurement.UNAVAILABLE : (int) CellBinaryFormat.unzigzag(value - 1);
+    }
+
+    private String readString() {
+        long value = readVarint();
+        if (value == 0) {
+            return null;
+        }
+        if ((value & 1) == 1) {
+            int index = (int) ((value - 1) / 2);
+            if (index >= strings.size()) {
+                throw new IllegalArgumentException("Unknown string reference " + index);
+            }
+            return strings.get(index);
+        }
+        int length = (int) ((value - 2) / 2);
+        if (length > end - position) {
+            throw new IllegalArgumentException("Truncated cell message");
+        }
+        String text = new String(data, position, length, StandardCharsets.UTF_8);
+        position += length;
+        if (strings.size() < CellBinaryFormat.MAX_STRINGS) {
+            strings.add(text);
+        }
+        return text;
+    }
+
+    private long readVarint() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint too long");
+    }
+
+    private int readByte() {
+        if (position >= end) {
+            throw new IllegalArgumentException("Truncated cell message");
+        }
+        return data[position++] & 0xFF;
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.myapplication.cell;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+// Encodes cell reports in CellBinaryFormat. Holds the string table of one connection, so use a
+// new instance per socket. Thread-safe; the output buffer is reused between messages. A message
+// that is not sent after all must be given back with discardLast() before the next encode, or
+// the table would reference strings the server never received.
+public class CellBinaryEncoder {
+    // Offered on the upgrade request; the server opts in by echoing the value back.
+    public static final String HEADER = "X-Cell-Format";
+    public static final String VERSION_NAME = "binary-1";
+
+    private final Map<String, Integer> strings = new HashMap<>();
+    private byte[] buffer = new byte[512];
+    private int length;
+    private int stringsBeforeLast; // Table size before the last message
+
+    public synchronized byte[] encode(PrimaryCellReport report, long clockOffsetMs) {
+        start(CellBinaryFormat.KIND_PRIMARY, report.timestampMs + clockOffsetMs);
+        writeVarint(report.simCount);
+        writeVarint(report.sims.size());
+        for (SimCellReport sim : report.sims) {
+            writeVarint(sim.simSlot);
+            writeString(sim.carrier);
+            writeString(sim.mcc);
+            writeString(sim.mnc);
+            if (sim.servingCell != null) {
+                writeByte(1);
+                writeCell(sim.servingCell);
+            } else {
+                writeByte(0);
+            }
+        }
+        return finish();
+    }
+
+    public synchronized byte[] encode(NeighborCellReport report, long clockOffsetMs) {
+        start(CellBinaryFormat.KIND_NEIGHBORS, report.timestampMs + clockOffsetMs);
+        writeVarint(report.neighbors.size());
+        for (CellMeasurement cell : report.neighbors) {
+            writeCell(cell);
+        }
+        return finish();
+    }
+
+    // Forgets the strings the last message added to the table.
+    public synchronized void discardLast() {
+        if (strings.size() > stringsBeforeLast) {
+            strings.values().removeIf(index -> index >= stringsBeforeLast);
+        }
+    }
+
+    private void start(int kind, long timestampMs) {
+        length = 0;
+        stringsBeforeLast = strings.size();
+        writeByte(CellBinaryFormat.MAGIC);
+        writeByte(CellBinaryFormat.VERSION);
+        writeByte(kind);
+        writeVarint(CellBinaryFormat.zigzag(timestampMs));
+    }
+
+    private byte[] finish() {
+        byte[] message = new byte[length];
+        System.arraycopy(buffer, 0, message, 0, length);
+        return message;
+    }
+
+    private void writeCell(CellMeasurement cell) {
+        writeByte(cell.radioType.getCode());
+        writeString(cell.carrier);
+        writeString(cell.mcc);
+        writeString(cell.mnc);
+        switch (cell.radioType) {
+            case LTE:
+                writeInt(cell.pci);
+                writeInt(cell.tac);
+                writeInt(cell.ci);
+                writeInt(cell.band);
+                writeInt(cell.rsrp);
+                writeInt(cell.rsrq);
+                break;
+            case NR:
+                writeInt(cell.pci);
+                writeInt(cell.tac);
+                writeVarint(cell.nci == CellMeasurement.UNAVAILABLE_LONG ? 0 : CellBinaryFormat.zigzag(cell.nci) + 1);
+                writeInt(cell.ssRsrp);
+                writeInt(cell.ssRsrq);
+                break;
+            case GSM:
+            case WCDMA:
+                writeInt(cell.lac);
+                writeInt(cell.cid);
+                writeInt(cell.rssi);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void writeInt(int value) {
+        writeVarint(value == CellMeasurement.UNAVAILABLE ? 0 : CellBinaryFormat.zigzag(value) + 1);
+    }
+
+    private void writeString(String value) {
+        if (value == null) {
+            writeVarint(0);
+            return;
+        }
+        Integer index = strings.get(value);
+        if (index != null) {
+            writeVarint(2L * index + 1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(2L * bytes.length + 2);
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+        if (strings.size() < CellBinaryFormat.MAX_STRINGS) {
+            strings.put(value, strings.size());
+        }
+    }
+
+    private void writeVarint(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[length++] = (byte) value;
+    }
+
+    private void writeByte(int value) {
+        ensureCapacity(1);
+        buffer[length++] = (byte) value;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > buffer.length) {
+            byte[] grown = new byte[Math.max(buffer.length * 2, length + extra)];
+            System.arraycopy(buffer, 0, grown, 0, length);
+            buffer = grown;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.myapplication.cell;
+
+// The compact binary cell message, shared by CellBinaryEncoder and CellBinaryDecoder.
+//
+// Message: [byte MAGIC][byte VERSION][byte kind], zigzag varint timestamp in ms (scan time
+// shifted to server time), then
+//   primary:   varint simCount, varint entries, per entry: varint simSlot, str carrier, str mcc,
+//              str mnc, byte hasCell, [cell]
+//   neighbors: varint count, count cells
+// Cell: byte radio code, str carrier, str mcc, str mnc, then per radio type
+//   LTE: pci, tac, ci, band, rsrp, rsrq; NR: pci, tac, nci (64 bit), ss_rsrp, ss_rsrq;
+//   GSM/WCDMA: lac, cid, rssi; UNKNOWN: nothing.
+// Integers are zigzag varints of value + 1, with 0 meaning UNAVAILABLE.
+// Strings are a varint n: 0 is null, odd n references string table entry (n - 1) / 2, even n is
+// a literal of (n - 2) / 2 UTF-8 bytes that is then appended to the table. The table lives for
+// the whole connection, so carrier names and PLMN codes are sent once per socket.
+final class CellBinaryFormat {
+    static final int MAGIC = 0x43; // 'C', distinct from the compressed frame flag byte
+    static final int VERSION = 1;
+    static final int KIND_PRIMARY = 1;
+    static final int KIND_NEIGHBORS = 2;
+    static final int MAX_STRINGS = 256;
+
+    private CellBinaryFormat() {
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.myapplication.cell;
+
+// Writes cell reports as the JSON messages the server has always received, straight into a
+// StringBuilder instead of building org.json trees. Null strings are left out, as
+// JSONObject.put(key, null) did. "timestamp" is the scan time shifted by clockOffsetMs, i.e. in
+// server time once the clock offset is known.
+public final class CellJsonWriter {
+    private CellJsonWriter() {
+    }
+
+    public static String write(PrimaryCellReport report, long clockOffsetMs) {
+        StringBuilder json = new StringBuilder(256);
+        json.append("{\"type\":\"primary_cell\",\"timestamp\":").append(report.timestampMs + clockOffsetMs)
+                .append(",\"sim_count\":").append(report.simCount).append(",\"sims\":{");
+        for (int i = 0; i < report.sims.size(); i++) {
+            SimCellReport sim = report.sims.get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("\"sim_").append(sim.simSlot).append("\":{\"sim_slot\":").append(sim.simSlot);
+            appendString(json, "carrier", sim.carrier);
+            appendString(json, "mcc", sim.mcc);
+            appendString(json, "mnc", sim.mnc);
+            if (sim.servingCell != null) {
+                json.append(",\"cell\":");
+                if (sim.servingCell.radioType == RadioType.UNKNOWN) {
+                    json.append("{}"); // Unlike neighbors, an unrecognized serving cell was always sent empty
+                } else {
+                    appendCell(json, sim.servingCell);
+                }
+            }
+            json.append('}');
+        }
+        return json.append("}}").toString();
+    }
+
+    public static String write(NeighborCellReport report, long clockOffsetMs) {
+        StringBuilder json = new StringBuilder(128 + 200 * report.neighbors.size());
+        json.append("{\"type\":\"neighboring_cells\",\"timestamp\":").append(report.timestampMs + clockOffsetMs)
+                .append(",\"neighbors\":[");
+        for (int i = 0; i < report.neighbors.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendCell(json, report.neighbors.get(i));
+        }
+        return json.append("],\"neighbor_count\":").append(report.neighbors.size()).append('}').toString();
+    }
+
+    private static void appendCell(StringBuilder json, CellMeasurement cell) {
+        json.append("{\"network\":");
+        appendQuoted(json, cell.radioType.getJsonName());
+        appendString(json, "carrier", cell.carrier);
+        switch (cell.radioType) {
+            case LTE:
+                appendInt(json, "pci", cell.pci);
+                appendInt(json, "tac", cell.tac);
+                appendInt(json, "ci", cell.ci);
+                appendInt(json, "band", cell.band);
+                appendInt(json, "rsrp", cell.rsrp);
+                appendInt(json, "rsrq", cell.rsrq);
+                break;
+            case NR:
+                appendInt(json, "pci", cell.pci);
+                appendInt(json, "tac", cell.tac);
+                json.append(",\"nci\":").append(cell.nci);
+                appendInt(json, "ss_rsrp", cell.ssRsrp);
+                appendInt(json, "ss_rsrq", cell.ssRsrq);
+                break;
+            case GSM:
+            case WCDMA:
+                appendInt(json, "lac", cell.lac);
+                appendInt(json, "cid", cell.cid);
+                appendInt(json, "rssi", cell.rssi);
+                break;
+            default:
+                break;
+        }
+        appendString(json, "mcc", cell.mcc);
+        appendString(json, "mnc", cell.mnc);
+        json.append('}');
+    }
+
+    private static void appendInt(StringBuilder json, String key, int value) {
+        json.append(",\"").append(key).append("\":").append(value);
+    }
+
+    private static void appendString(StringBuilder json, String key, String value) {
+        if (value != null) {
+            json.append(",\"").append(key).append("\":");
+            appendQuoted(json, value);
+        }
+    }
+
+    static void appendQuoted(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+}
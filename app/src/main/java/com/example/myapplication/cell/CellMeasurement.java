@@ -0,0 +1,78 @@
+package com.example.myapplication.cell;
+
+// One cell as reported by the telephony APIs. Only the fields of its radio type are meaningful;
+// the others are UNAVAILABLE. Carrier, MCC and MNC are null when the message does not carry
+// them, e.g. for a serving cell whose operator is on the SIM entry instead.
+public final class CellMeasurement {
+    public static final int UNAVAILABLE = Integer.MAX_VALUE; // Same as CellInfo.UNAVAILABLE
+    public static final long UNAVAILABLE_LONG = Long.MAX_VALUE;
+
+    public final RadioType radioType;
+    public final String carrier;
+    public final String mcc;
+    public final String mnc;
+    public final int pci;
+    public final int tac;
+    public final int ci;
+    public final long nci;
+    public final int band; // EARFCN for LTE
+    public final int lac;
+    public final int cid;
+    public final int rsrp;
+    public final int rsrq;
+    public final int ssRsrp;
+    public final int ssRsrq;
+    public final int rssi;
+
+    CellMeasurement(RadioType radioType, String carrier, String mcc, String mnc, int pci, int tac, int ci,
+                    long nci, int band, int lac, int cid, int rsrp, int rsrq, int ssRsrp, int ssRsrq, int rssi) {
+        this.radioType = radioType;
+        this.carrier = carrier;
+        this.mcc = mcc;
+        this.mnc = mnc;
+        this.pci = pci;
+        this.tac = tac;
+        this.ci = ci;
+        this.nci = nci;
+        this.band = band;
+        this.lac = lac;
+        this.cid = cid;
+        this.rsrp = rsrp;
+        this.rsrq = rsrq;
+        this.ssRsrp = ssRsrp;
+        this.ssRsrq = ssRsrq;
+        this.rssi = rssi;
+    }
+
+    public static CellMeasurement lte(String carrier, String mcc, String mnc, int pci, int tac, int ci, int earfcn,
+                                      int rsrp, int rsrq) {
+        return new CellMeasurement(RadioType.LTE, carrier, mcc, mnc, pci, tac, ci, UNAVAILABLE_LONG, earfcn,
+                UNAVAILABLE, UNAVAILABLE, rsrp, rsrq, UNAVAILABLE, UNAVAILABLE, UNAVAILABLE);
+    }
+
+    public static CellMeasurement nr(String carrier, String mcc, String mnc, int pci, int tac, long nci,
+                                     int ssRsrp, int ssRsrq) {
+        return new CellMeasurement(RadioType.NR, carrier, mcc, mnc, pci, tac, UNAVAILABLE, nci, UNAVAILABLE,
+                UNAVAILABLE, UNAVAILABLE, UNAVAILABLE, UNAVAILABLE, ssRsrp, ssRsrq, UNAVAILABLE);
+    }
+
+    public static CellMeasurement gsm(String carrier, String mcc, String mnc, int lac, int cid, int rssi) {
+        return legacy(RadioType.GSM, carrier, mcc, mnc, lac, cid, rssi);
+    }
+
+    public static CellMeasurement wcdma(String carrier, String mcc, String mnc, int lac, int cid, int rssi) {
+        return legacy(RadioType.WCDMA, carrier, mcc, mnc, lac, cid, rssi);
+    }
+
+    private static CellMeasurement legacy(RadioType type, String carrier, String mcc, String mnc, int lac, int cid,
+                                          int rssi) {
+        return new CellMeasurement(type, carrier, mcc, mnc, UNAVAILABLE, UNAVAILABLE, UNAVAILABLE, UNAVAILABLE_LONG,
+                UNAVAILABLE, lac, cid, UNAVAILABLE, UNAVAILABLE, UNAVAILABLE, UNAVAILABLE, rssi);
+    }
+
+    public static CellMeasurement unknown(String carrier) {
+        return new CellMeasurement(RadioType.UNKNOWN, carrier, null, null, UNAVAILABLE, UNAVAILABLE, UNAVAILABLE,
+                UNAVAILABLE_LONG, UNAVAILABLE, UNAVAILABLE, UNAVAILABLE, UNAVAILABLE, UNAVAILABLE, UNAVAILABLE,
+                UNAVAILABLE, UNAVAILABLE);
+    }
+}
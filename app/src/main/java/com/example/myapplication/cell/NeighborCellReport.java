@@ -0,0 +1,16 @@
+package com.example.myapplication.cell;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// All unregistered cells in one scan; the "neighboring_cells" message.
+public final class NeighborCellReport {
+    public final long timestampMs; // When the scan ran, device clock
+    public final List<CellMeasurement> neighbors;
+
+    public NeighborCellReport(long timestampMs, List<CellMeasurement> neighbors) {
+        this.timestampMs = timestampMs;
+        this.neighbors = Collections.unmodifiableList(new ArrayList<>(neighbors));
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.myapplication.cell;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Serving cell per active SIM; the "primary_cell" message.
+public final class PrimaryCellReport {
+    public final long timestampMs; // When the scan ran, device clock
+    public final int simCount;
+    public final List<SimCellReport> sims;
+
+    public PrimaryCellReport(long timestampMs, int simCount, List<SimCellReport> sims) {
+        this.timestampMs = timestampMs;
+        this.simCount = simCount;
+        this.sims = Collections.unmodifiableList(new ArrayList<>(sims));
+    }
+}
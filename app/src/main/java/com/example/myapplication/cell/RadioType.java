@@ -0,0 +1,36 @@
+package com.example.myapplication.cell;
+
+// Radio access technology of a cell. The code is used on the binary wire format, the JSON name
+// in the "network" field of JSON messages.
+public enum RadioType {
+    UNKNOWN(0, "Unknown"),
+    GSM(1, "GSM"),
+    WCDMA(2, "WCDMA"),
+    LTE(3, "LTE"),
+    NR(4, "5G NR");
+
+    private final int code;
+    private final String jsonName;
+
+    RadioType(int code, String jsonName) {
+        this.code = code;
+        this.jsonName = jsonName;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public String getJsonName() {
+        return jsonName;
+    }
+
+    public static RadioType fromCode(int code) {
+        for (RadioType type : values()) {
+            if (type.code == code) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown radio type " + code);
+    }
+}
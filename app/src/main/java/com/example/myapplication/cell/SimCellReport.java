@@ -0,0 +1,18 @@
+package com.example.myapplication.cell;
+
+// One SIM's entry in a primary cell message; servingCell is null if no registered cell matched.
+public final class SimCellReport {
+    public final int simSlot; // 1-based
+    public final String carrier;
+    public final String mcc;
+    public final String mnc;
+    public final CellMeasurement servingCell;
+
+    public SimCellReport(int simSlot, String carrier, String mcc, String mnc, CellMeasurement servingCell) {
+        this.simSlot = simSlot;
+        this.carrier = carrier;
+        this.mcc = mcc;
+        this.mnc = mnc;
+        this.servingCell = servingCell;
+    }
+}
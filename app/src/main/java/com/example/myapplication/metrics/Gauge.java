@@ -0,0 +1,23 @@
+package com.example.myapplication.metrics;
+
+// Last observed value of something, e.g. a queue depth. Thread-safe and allocation-free.
+public final class Gauge {
+    private final String name;
+    private volatile long value;
+
+    Gauge(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void set(long value) {
+        this.value = value;
+    }
+
+    public long get() {
+        return value;
+    }
+}
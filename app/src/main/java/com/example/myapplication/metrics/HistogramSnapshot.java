@@ -0,0 +1,59 @@
+package com.example.myapplication.metrics;
+
+import java.util.Locale;
+
+// Immutable summary of a LatencyHistogram. Times are in microseconds.
+public final class HistogramSnapshot {
+    private final String name;
+    private final long count;
+    private final long meanMicros;
+    private final long p50Micros;
+    private final long p90Micros;
+    private final long p99Micros;
+    private final long maxMicros;
+
+    public HistogramSnapshot(String name, long count, long meanMicros, long p50Micros, long p90Micros,
+                             long p99Micros, long maxMicros) {
+        this.name = name;
+        this.count = count;
+        this.meanMicros = meanMicros;
+        this.p50Micros = p50Micros;
+        this.p90Micros = p90Micros;
+        this.p99Micros = p99Micros;
+        this.maxMicros = maxMicros;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMeanMicros() {
+        return meanMicros;
+    }
+
+    public long getP50Micros() {
+        return p50Micros;
+    }
+
+    public long getP90Micros() {
+        return p90Micros;
+    }
+
+    public long getP99Micros() {
+        return p99Micros;
+    }
+
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%s: n %d, mean %d us, p50/p90/p99 %d/%d/%d us, max %d us",
+                name, count, meanMicros, p50Micros, p90Micros, p99Micros, maxMicros);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.myapplication.metrics;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Process-wide named counters, gauges and latency histograms. Look a metric up once and keep
+// the reference: lookups go through a map, but updating a metric is allocation-free.
+public class MetricsRegistry {
+    private static MetricsRegistry instance;
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, Gauge> gauges = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    // The app shares getInstance(); separate registries keep tests independent.
+    public MetricsRegistry() {
+    }
+
+    public static synchronized MetricsRegistry getInstance() {
+        if (instance == null) {
+            instance = new MetricsRegistry();
+        }
+        return instance;
+    }
+
+    public Counter counter(String name) {
+        Counter counter = counters.get(name);
+        return counter != null ? counter : counters.computeIfAbsent(name, Counter::new);
+    }
+
+    public Gauge gauge(String name) {
+        Gauge gauge = gauges.get(name);
+        return gauge != null ? gauge : gauges.computeIfAbsent(name, Gauge::new);
+    }
+
+    public LatencyHistogram histogram(String name) {
+        LatencyHistogram histogram = histograms.get(name);
+        return histogram != null ? histogram : histograms.computeIfAbsent(name, LatencyHistogram::new);
+    }
+
+    public MetricsSnapshot snapshot() {
+        Map<String, Long> counterValues = new TreeMap<>();
+        for (Counter counter : counters.values()) {
+            counterValues.put(counter.getName(), counter.get());
+        }
+        Map<String, Long> gaugeValues = new TreeMap<>();
+        for (Gauge gauge : gauges.values()) {
+            gaugeValues.put(gauge.getName(), gauge.get());
+        }
+        Map<String, HistogramSnapshot> histogramValues = new TreeMap<>();
+        for (LatencyHistogram histogram : histograms.values()) {
+            histogramValues.put(histogram.getName(), histogram.snapshot());
+        }
+        return new MetricsSnapshot(System.currentTimeMillis(), counterValues, gaugeValues,
+                new ArrayList<>(histogramValues.values()));
+    }
+
+    // Appends a timestamped snapshot to file, so repeated dumps build up a history.
+    public void dump(File file) throws IOException {
+        MetricsSnapshot snapshot = snapshot();
+        String time = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS", Locale.US).format(new Date(snapshot.getTimestampMs()));
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8)) {
+            writer.write("=== " + time + " ===\n" + snapshot + "\n\n");
+        }
+    }
+}
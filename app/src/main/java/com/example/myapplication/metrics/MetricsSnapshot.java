@@ -0,0 +1,61 @@
+package com.example.myapplication.metrics;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+// Immutable view of every registered metric at one point in time, sorted by name.
+public final class MetricsSnapshot {
+    private final long timestampMs;
+    private final Map<String, Long> counters;
+    private final Map<String, Long> gauges;
+    private final List<HistogramSnapshot> histograms;
+
+    public MetricsSnapshot(long timestampMs, Map<String, Long> counters, Map<String, Long> gauges,
+                           List<HistogramSnapshot> histograms) {
+        this.timestampMs = timestampMs;
+        this.counters = Collections.unmodifiableMap(counters);
+        this.gauges = Collections.unmodifiableMap(gauges);
+        this.histograms = Collections.unmodifiableList(histograms);
+    }
+
+    public long getTimestampMs() {
+        return timestampMs;
+    }
+
+    public Map<String, Long> getCounters() {
+        return counters;
+    }
+
+    public Map<String, Long> getGauges() {
+        return gauges;
+    }
+
+    public List<HistogramSnapshot> getHistograms() {
+        return histograms;
+    }
+
+    public HistogramSnapshot getHistogram(String name) {
+        for (HistogramSnapshot histogram : histograms) {
+            if (histogram.getName().equals(name)) {
+                return histogram;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (HistogramSnapshot histogram : histograms) {
+            builder.append(histogram).append('\n');
+        }
+        for (Map.Entry<String, Long> counter : counters.entrySet()) {
+            builder.append(counter.getKey()).append(": ").append(counter.getValue()).append('\n');
+        }
+        for (Map.Entry<String, Long> gauge : gauges.entrySet()) {
+            builder.append(gauge.getKey()).append(" = ").append(gauge.getValue()).append('\n');
+        }
+        return builder.length() > 0 ? builder.substring(0, builder.length() - 1) : "";
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.myapplication.sampling;
+
+import com.example.myapplication.cell.CellMeasurement;
+import com.example.myapplication.cell.PrimaryCellReport;
+import com.example.myapplication.cell.SimCellReport;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// Picks the primary scan interval from how fast the serving cells are changing. A new serving
+// cell on any SIM (a handover, or service lost or regained) drops straight to the minimum
+// interval. Otherwise the fastest serving signal (RSRP, SS-RSRP or RSSI) change across SIMs,
+// smoothed over scans and ignoring changes within the measurement noise, halves the interval
+// when it is moving and stretches it by half after a few quiet scans, within the bounds.
+// Thread-safe.
+public class AdaptiveScanInterval {
+    static final int NOISE_DB = 2;
+    static final double FAST_DB_PER_SECOND = 1.5;
+    static final double SLOW_DB_PER_SECOND = 0.25;
+    static final int STABLE_SCANS_TO_SLOW_DOWN = 3;
+    private static final double SMOOTHING = 0.5;
+
+    private static final class Observation {
+        final String identity;
+        final int signalDbm;
+        final long nanos;
+
+        Observation(String identity, int signalDbm, long nanos) {
+            this.identity = identity;
+            this.signalDbm = signalDbm;
+            this.nanos = nanos;
+        }
+    }
+
+    private final Map<Integer, Observation> lastBySlot = new HashMap<>();
+    private long minIntervalMs;
+    private long maxIntervalMs;
+    private long intervalMs;
+    private double smoothedDbPerSecond;
+    private int stableScans;
+    private String reason;
+    private long changes;
+
+    public AdaptiveScanInterval(long minIntervalMs, long maxIntervalMs, long initialIntervalMs) {
+        setBounds(minIntervalMs, maxIntervalMs);
+        this.intervalMs = clamp(initialIntervalMs);
+        this.reason = "initial";
+    }
+
+    public synchronized void setBounds(long minIntervalMs, long maxIntervalMs) {
+        if (minIntervalMs <= 0 || maxIntervalMs < minIntervalMs) {
+            throw new IllegalArgumentException("Bounds must satisfy 0 < min <= max");
+        }
+        this.minIntervalMs = minIntervalMs;
+        this.maxIntervalMs = maxIntervalMs;
+        if (intervalMs != 0 && intervalMs != clamp(intervalMs)) {
+            change(clamp(intervalMs), "bounds changed to " + minIntervalMs + "-" + maxIntervalMs + " ms");
+        }
+    }
+
+    // Feeds one primary scan; returns true if the interval changed.
+    public synchronized boolean onScan(long nowNanos, PrimaryCellReport report) {
+        String handover = null;
+        double fastestDbPerSecond = 0;
+        for (SimCellReport sim : report.sims) {
+            Observation current = observe(sim.servingCell, nowNanos);
+            Observation previous = lastBySlot.put(sim.simSlot, current);
+            if (previous == null) {
+                continue;
+            }
+            if (!previous.identity.equals(current.identity)) {
+                handover = "serving cell changed on SIM " + sim.simSlot + " (" + previous.identity + " -> "
+                        + current.identity + ")";
+            } else if (previous.signalDbm != CellMeasurement.UNAVAILABLE
+                    && current.signalDbm != CellMeasurement.UNAVAILABLE && current.nanos > previous.nanos) {
+                int deltaDb = Math.max(0, Math.abs(current.signalDbm - previous.signalDbm) - NOISE_DB);
+                double seconds = (current.nanos - previous.nanos) / 1e9;
+                fastestDbPerSecond = Math.max(fastestDbPerSecond, deltaDb / seconds);
+            }
+        }
+
+        if (handover != null) {
+            stableScans = 0;
+            smoothedDbPerSecond = 0;
+            return change(minIntervalMs, handover);
+        }
+        smoothedDbPerSecond = SMOOTHING * fastestDbPerSecond + (1 - SMOOTHING) * smoothedDbPerSecond;
+        if (smoothedDbPerSecond >= FAST_DB_PER_SECOND) {
+            stableScans = 0;
+            return change(clamp(intervalMs / 2),
+                    String.format(Locale.US, "signal changing %.1f dB/s", smoothedDbPerSecond));
+        }
+        if (smoothedDbPerSecond <= SLOW_DB_PER_SECOND) {
+            if (++stableScans >= STABLE_SCANS_TO_SLOW_DOWN) {
+                stableScans = 0;
+                return change(clamp(intervalMs + intervalMs / 2),
+                        String.format(Locale.US, "signal stable %.2f dB/s", smoothedDbPerSecond));
+            }
+            return false;
+        }
+        stableScans = 0;
+        return false;
+    }
+
+    public synchronized long getIntervalMs() {
+        return intervalMs;
+    }
+
+    public synchronized SamplingRate getRate() {
+        return new SamplingRate(intervalMs, reason, changes);
+    }
+
+    private boolean change(long newIntervalMs, String why) {
+        if (newIntervalMs == intervalMs) {
+            return false;
+        }
+        intervalMs = newIntervalMs;
+        reason = why;
+        changes++;
+        return true;
+    }
+
+    private long clamp(long ms) {
+        return Math.max(minIntervalMs, Math.min(maxIntervalMs, ms));
+    }
+
+    private static Observation observe(CellMeasurement cell, long nowNanos) {
+        if (cell == null) {
+            return new Observation("none", CellMeasurement.UNAVAILABLE, nowNanos);
+        }
+        switch (cell.radioType) {
+            case LTE:
+                return new Observation("LTE " + cell.pci + "/" + cell.ci, cell.rsrp, nowNanos);
+            case NR:
+                return new Observation("NR " + cell.pci + "/" + cell.nci, cell.ssRsrp, nowNanos);
+            case GSM:
+            case WCDMA:
+                return new Observation(cell.radioType + " " + cell.lac + "/" + cell.cid, cell.rssi, nowNanos);
+            default:
+                return new Observation("unknown", CellMeasurement.UNAVAILABLE, nowNanos);
+        }
+    }
+}
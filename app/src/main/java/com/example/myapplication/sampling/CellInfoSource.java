@@ -0,0 +1,16 @@
+package com.example.myapplication.sampling;
+
+import android.annotation.SuppressLint;
+import android.telephony.CellInfo;
+import android.telephony.TelephonyManager;
+import java.util.List;
+
+// Where CellScanner gets its CellInfo lists: polled from the modem's cache, or the latest
+// list pushed through TelephonyCallback (see TelephonyEventCollector).
+public interface CellInfoSource {
+    // telephonyManager is already bound to subscriptionId.
+    List<CellInfo> getAllCellInfo(TelephonyManager telephonyManager, int subscriptionId);
+
+    @SuppressLint("MissingPermission")
+    CellInfoSource POLLING = (telephonyManager, subscriptionId) -> telephonyManager.getAllCellInfo();
+}
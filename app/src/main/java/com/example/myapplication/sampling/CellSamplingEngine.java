@@ -0,0 +1,362 @@
+package com.example.myapplication.sampling;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.SystemClock;
+import android.util.Log;
+import androidx.annotation.RequiresApi;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import com.example.myapplication.cell.NeighborCellReport;
+import com.example.myapplication.cell.PrimaryCellReport;
+import com.example.myapplication.metrics.Counter;
+import com.example.myapplication.metrics.Gauge;
+import com.example.myapplication.metrics.LatencyHistogram;
+import com.example.myapplication.metrics.MetricsRegistry;
+import com.example.myapplication.services.WebSocketService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Runs the cell scans on a background thread, independent of which screen is showing: on timers
+// in POLLING mode, or whenever the modem pushes changed cells in EVENTS mode. One CellScanner
+// pass yields both the primary and the neighbor snapshot; either sender reuses a pass younger
+// than the scan cache TTL, the primary one only if it has not sent it yet, and any screen
+// reading getLatestScan() whatever pass is cached. With adaptive sampling the timers follow
+// AdaptiveScanInterval instead of the fixed intervals. The reports are handed to
+// WebSocketService and the snapshots published for the fragments to observe.
+// Started and stopped by CellSamplingService.
+public class CellSamplingEngine {
+    private static CellSamplingEngine instance;
+    public static final long PRIMARY_INTERVAL_MS = 3000;
+    public static final long NEIGHBOR_INTERVAL_MS = 5000;
+    private static final long EVENT_COALESCE_MS = 100; // One scan for callbacks from several SIMs
+    private static final long EVENT_WATCHDOG_MS = 10_000;
+    // Oldest pass either sender reuses instead of scanning again; also bounds the age of neighbor
+    // reports independently of the adaptive primary interval
+    public static final long DEFAULT_SCAN_TTL_MS = 2500;
+    public static final long MIN_ADAPTIVE_INTERVAL_MS = 1000;
+    public static final long MAX_ADAPTIVE_INTERVAL_MS = 15_000;
+
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private final Counter skippedScans = metrics.counter("sampling.skipped");
+    private final Gauge neighborCellsSeen = metrics.gauge("scan.neighbors.cells");
+    private final LatencyHistogram cellScans = metrics.histogram("scan.cells");
+    private final LatencyHistogram measurementAge = metrics.histogram("cell.measurement_age");
+    private final Gauge intervalGauge = metrics.gauge("sampling.interval_ms");
+    private final Counter intervalChanges = metrics.counter("sampling.interval_changes");
+    private final MutableLiveData<SamplingRate> samplingRate = new MutableLiveData<>();
+    private final MutableLiveData<CellSnapshot<PrimaryCellReport>> primarySnapshot = new MutableLiveData<>();
+    private final MutableLiveData<CellSnapshot<NeighborCellReport>> neighborSnapshot = new MutableLiveData<>();
+    private final WebSocketService webSocketService = WebSocketService.getInstance();
+    private final SnapshotCache<CellScan> scanCache = new SnapshotCache<>(
+            TimeUnit.MILLISECONDS.toNanos(DEFAULT_SCAN_TTL_MS),
+            metrics.counter("scan.cache.hits"), metrics.counter("scan.cache.misses"));
+    private ScheduledExecutorService executor; // Null while stopped
+    private SamplingTask primaryTask;
+    private SamplingTask neighborTask;
+    private TelephonyEventCollector eventCollector; // EVENTS mode only
+    private ScheduledFuture<?> eventWatchdog;
+    private Context appContext;
+    private volatile CollectionMode collectionMode = CollectionMode.POLLING;
+    private final AdaptiveScanInterval adaptiveInterval =
+            new AdaptiveScanInterval(MIN_ADAPTIVE_INTERVAL_MS, MAX_ADAPTIVE_INTERVAL_MS, PRIMARY_INTERVAL_MS);
+    private volatile boolean adaptiveSampling;
+
+    // One periodic scan, rescheduling itself against its FixedRateSchedule after each run.
+    private abstract class SamplingTask implements Runnable {
+        private final ScheduledExecutorService taskExecutor;
+        private final FixedRateSchedule schedule;
+        private final LatencyHistogram jitter;
+        private final LatencyHistogram duration;
+        private ScheduledFuture<?> next;
+
+        SamplingTask(ScheduledExecutorService taskExecutor, String name, long intervalMs) {
+            this.taskExecutor = taskExecutor;
+            this.schedule = new FixedRateSchedule(TimeUnit.MILLISECONDS.toNanos(intervalMs), System.nanoTime());
+            this.jitter = metrics.histogram("sampling." + name + ".jitter");
+            this.duration = metrics.histogram("scan." + name);
+        }
+
+        abstract void scan();
+
+        void start() {
+            next = taskExecutor.schedule(this, 0, TimeUnit.NANOSECONDS);
+        }
+
+        long getIntervalNanos() {
+            return schedule.getIntervalNanos();
+        }
+
+        void setIntervalMs(long intervalMs) {
+            schedule.setIntervalNanos(TimeUnit.MILLISECONDS.toNanos(intervalMs));
+        }
+
+        void cancel() {
+            if (next != null) {
+                next.cancel(false);
+            }
+        }
+
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            jitter.record(Math.abs(schedule.latenessNanos(start)));
+            try {
+                scan();
+            } catch (RuntimeException e) {
+                // A SecurityException if a permission was revoked; keep the schedule alive
+                Log.e("CellSamplingEngine", "Scan failed: " + e.getMessage());
+            }
+            long end = System.nanoTime();
+            duration.record(end - start);
+            long skippedBefore = schedule.getSkippedCount();
+            long delay = schedule.advance(end);
+            skippedScans.add(schedule.getSkippedCount() - skippedBefore);
+            if (!taskExecutor.isShutdown()) {
+                next = taskExecutor.schedule(this, delay, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private CellSamplingEngine() {
+    }
+
+    public static synchronized CellSamplingEngine getInstance() {
+        if (instance == null) {
+            instance = new CellSamplingEngine();
+        }
+        return instance;
+    }
+
+    public LiveData<CellSnapshot<PrimaryCellReport>> getPrimarySnapshot() {
+        return primarySnapshot;
+    }
+
+    public LiveData<CellSnapshot<NeighborCellReport>> getNeighborSnapshot() {
+        return neighborSnapshot;
+    }
+
+    public synchronized boolean isRunning() {
+        return executor != null;
+    }
+
+    // The latest scan however old, or null before the first one; never touches telephony.
+    public CellScan getLatestScan() {
+        return scanCache.peek();
+    }
+
+    public void setScanCacheTtlMs(long ttlMs) {
+        scanCache.setTtlNanos(TimeUnit.MILLISECONDS.toNanos(ttlMs));
+    }
+
+    public long getScanCacheTtlMs() {
+        return TimeUnit.NANOSECONDS.toMillis(scanCache.getTtlNanos());
+    }
+
+    // Interval and reason for the last change; polling mode only.
+    public LiveData<SamplingRate> getSamplingRate() {
+        return samplingRate;
+    }
+
+    public boolean isAdaptiveSampling() {
+        return adaptiveSampling;
+    }
+
+    // Takes effect after the next primary scan.
+    public void setAdaptiveSampling(boolean enabled) {
+        adaptiveSampling = enabled;
+        samplingRate.postValue(enabled ? adaptiveInterval.getRate()
+                : new SamplingRate(PRIMARY_INTERVAL_MS, "fixed interval", 0));
+    }
+
+    public void setAdaptiveBoundsMs(long minIntervalMs, long maxIntervalMs) {
+        adaptiveInterval.setBounds(minIntervalMs, maxIntervalMs);
+        if (adaptiveSampling) {
+            samplingRate.postValue(adaptiveInterval.getRate());
+        }
+    }
+
+    public CollectionMode getCollectionMode() {
+        return collectionMode;
+    }
+
+    // Takes effect immediately, restarting the engine if it is running. EVENTS falls back to
+    // POLLING below API 31, which lacks TelephonyCallback.
+    public synchronized void setCollectionMode(CollectionMode mode) {
+        if (mode == CollectionMode.EVENTS && Build.VERSION.SDK_INT < Build.VERSION_CODES.S) {
+            Log.w("CellSamplingEngine", "Event-driven collection needs API 31, staying on polling");
+            mode = CollectionMode.POLLING;
+        }
+        if (mode == collectionMode) {
+            return;
+        }
+        collectionMode = mode;
+        if (executor != null) {
+            Context context = appContext;
+            stop();
+            start(context);
+        }
+    }
+
+    public synchronized void start(Context context) {
+        if (executor != null) {
+            return;
+        }
+        appContext = context.getApplicationContext();
+        ScheduledExecutorService taskExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cell-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor = taskExecutor;
+        if (collectionMode == CollectionMode.EVENTS && Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            startEvents(taskExecutor);
+        } else {
+            startPolling(taskExecutor);
+        }
+        Log.d("CellSamplingEngine", "Sampling started, mode " + collectionMode);
+    }
+
+    private void startPolling(ScheduledExecutorService taskExecutor) {
+        long primaryIntervalMs = adaptiveSampling ? adaptiveInterval.getIntervalMs() : PRIMARY_INTERVAL_MS;
+        ScanPassPolicy<CellScan> passes = new ScanPassPolicy<>(scanCache);
+        SamplingTask neighbors = new SamplingTask(taskExecutor, "neighbors", neighborIntervalMs(primaryIntervalMs)) {
+            @Override
+            void scan() {
+                sendNeighbors(passes.forNeighbors(System.nanoTime(), () -> loadScan(CellInfoSource.POLLING)).neighbors);
+            }
+        };
+        SamplingTask primary = new SamplingTask(taskExecutor, "primary", primaryIntervalMs) {
+            @Override
+            void scan() {
+                long now = System.nanoTime();
+                CellScan scan = passes.forPrimary(now, () -> loadScan(CellInfoSource.POLLING));
+                sendPrimary(scan.primary);
+                adjustIntervals(this, neighbors, now - scanCache.getAgeNanos(now), scan.primary.report);
+            }
+        };
+        intervalGauge.set(primaryIntervalMs);
+        primaryTask = primary;
+        neighborTask = neighbors;
+        primaryTask.start();
+        neighborTask.start();
+    }
+
+    // Runs on the sampling thread after each primary scan, with the time the pass was taken;
+    // the neighbor interval keeps its ratio to the primary one.
+    private void adjustIntervals(SamplingTask primary, SamplingTask neighbors, long nowNanos, PrimaryCellReport report) {
+        long intervalMs = PRIMARY_INTERVAL_MS;
+        if (adaptiveSampling) {
+            if (report != null && adaptiveInterval.onScan(nowNanos, report)) {
+                SamplingRate rate = adaptiveInterval.getRate();
+                intervalChanges.increment();
+                samplingRate.postValue(rate);
+                Log.d("CellSamplingEngine", rate.toString());
+            }
+            intervalMs = adaptiveInterval.getIntervalMs();
+        }
+        primary.setIntervalMs(intervalMs);
+        neighbors.setIntervalMs(neighborIntervalMs(intervalMs));
+        intervalGauge.set(intervalMs);
+    }
+
+    private static long neighborIntervalMs(long primaryIntervalMs) {
+        return primaryIntervalMs * NEIGHBOR_INTERVAL_MS / PRIMARY_INTERVAL_MS;
+    }
+
+    @RequiresApi(Build.VERSION_CODES.S)
+    private void startEvents(ScheduledExecutorService taskExecutor) {
+        AtomicBoolean scanPending = new AtomicBoolean();
+        TelephonyEventCollector[] collector = new TelephonyEventCollector[1];
+        Runnable eventScan = () -> {
+            scanPending.set(false);
+            if (taskExecutor.isShutdown()) {
+                return;
+            }
+            try {
+                // The cells just changed, so whatever is cached is out of date
+                CellScan scan = scanCache.refresh(System.nanoTime(), () -> loadScan(collector[0]));
+                sendPrimary(scan.primary);
+                sendNeighbors(scan.neighbors);
+            } catch (RuntimeException e) {
+                Log.e("CellSamplingEngine", "Scan failed: " + e.getMessage());
+            }
+        };
+        // Called on the sampling thread; callbacks from several SIMs within the window share a scan
+        collector[0] = new TelephonyEventCollector(taskExecutor, metrics, subscriptionId -> {
+            if (!taskExecutor.isShutdown() && scanPending.compareAndSet(false, true)) {
+                taskExecutor.schedule(eventScan, EVENT_COALESCE_MS, TimeUnit.MILLISECONDS);
+            }
+        });
+        eventCollector = collector[0];
+        Context context = appContext;
+        taskExecutor.execute(() -> {
+            try {
+                collector[0].start(context);
+            } catch (SecurityException e) {
+                Log.e("CellSamplingEngine", "Cannot listen for cell info: " + e.getMessage());
+            }
+        });
+        eventWatchdog = taskExecutor.scheduleWithFixedDelay(collector[0]::requestStaleUpdates,
+                EVENT_WATCHDOG_MS, EVENT_WATCHDOG_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // Runs on the sampling thread under the cache's lock.
+    private CellScan loadScan(CellInfoSource source) {
+        long start = System.nanoTime();
+        CellScan scan = CellScanner.scan(appContext, source, webSocketService.isVerboseLogging());
+        cellScans.recordSince(start);
+        primarySnapshot.postValue(scan.primary);
+        neighborSnapshot.postValue(scan.neighbors);
+        if (scan.neighbors.report != null) {
+            neighborCellsSeen.set(scan.neighbors.report.neighbors.size());
+        }
+        return scan;
+    }
+
+    private void sendPrimary(CellSnapshot<PrimaryCellReport> snapshot) {
+        if (snapshot.report != null) {
+            recordMeasurementAge(snapshot);
+            // Sent live when connected, otherwise spooled until the session reconnects
+            webSocketService.sendPrimaryCellReport(snapshot.report);
+        }
+    }
+
+    private void sendNeighbors(CellSnapshot<NeighborCellReport> snapshot) {
+        if (snapshot.report != null) {
+            recordMeasurementAge(snapshot);
+            webSocketService.sendNeighborCellReport(snapshot.report);
+        }
+    }
+
+    // Age of the oldest measurement in the report as it is handed over for sending.
+    private void recordMeasurementAge(CellSnapshot<?> snapshot) {
+        if (snapshot.measuredElapsedMs > 0) {
+            long ageMs = SystemClock.elapsedRealtime() - snapshot.measuredElapsedMs;
+            measurementAge.record(TimeUnit.MILLISECONDS.toNanos(Math.max(0, ageMs)));
+        }
+    }
+
+    public synchronized void stop() {
+        if (executor == null) {
+            return;
+        }
+        if (primaryTask != null) {
+            primaryTask.cancel();
+            neighborTask.cancel();
+            primaryTask = null;
+            neighborTask = null;
+        }
+        if (eventCollector != null) {
+            eventWatchdog.cancel(false);
+            executor.execute(eventCollector::stop); // Queued tasks still run after shutdown()
+            eventCollector = null;
+        }
+        executor.shutdown();
+        executor = null;
+        Log.d("CellSamplingEngine", "Sampling stopped");
+    }
+}
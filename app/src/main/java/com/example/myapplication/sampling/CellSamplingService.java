@@ -0,0 +1,71 @@
+package com.example.myapplication.sampling;
+
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.app.Service;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.ServiceInfo;
+import android.os.IBinder;
+import androidx.core.content.ContextCompat;
+import com.example.myapplication.MainActivity;
+import com.example.myapplication.R;
+
+// Foreground service that keeps CellSamplingEngine running while the app is in the
+// background. Started once the location and phone state permissions are granted.
+public class CellSamplingService extends Service {
+    private static final String CHANNEL_ID = "cell_sampling";
+    private static final int NOTIFICATION_ID = 1;
+    private static final String ACTION_STOP = "com.example.myapplication.action.STOP_SAMPLING";
+
+    public static void start(Context context) {
+        ContextCompat.startForegroundService(context, new Intent(context, CellSamplingService.class));
+    }
+
+    public static void stop(Context context) {
+        context.stopService(new Intent(context, CellSamplingService.class));
+    }
+
+    @Override
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        if (intent != null && ACTION_STOP.equals(intent.getAction())) {
+            stopSelf();
+            return START_NOT_STICKY;
+        }
+        startForeground(NOTIFICATION_ID, buildNotification(), ServiceInfo.FOREGROUND_SERVICE_TYPE_LOCATION);
+        CellSamplingEngine.getInstance().start(this);
+        return START_STICKY;
+    }
+
+    @Override
+    public void onDestroy() {
+        CellSamplingEngine.getInstance().stop();
+        super.onDestroy();
+    }
+
+    @Override
+    public IBinder onBind(Intent intent) {
+        return null;
+    }
+
+    private Notification buildNotification() {
+        NotificationManager manager = getSystemService(NotificationManager.class);
+        manager.createNotificationChannel(
+                new NotificationChannel(CHANNEL_ID, "Cell sampling", NotificationManager.IMPORTANCE_LOW));
+
+        PendingIntent openApp = PendingIntent.getActivity(this, 0,
+                new Intent(this, MainActivity.class), PendingIntent.FLAG_IMMUTABLE);
+        PendingIntent stop = PendingIntent.getService(this, 0,
+                new Intent(this, CellSamplingService.class).setAction(ACTION_STOP), PendingIntent.FLAG_IMMUTABLE);
+        return new Notification.Builder(this, CHANNEL_ID)
+                .setSmallIcon(R.drawable.ic_home_black_24dp)
+                .setContentTitle("Sampling cell info")
+                .setContentText("Serving and neighboring cells are scanned in the background")
+                .setContentIntent(openApp)
+                .addAction(new Notification.Action.Builder(null, "Stop", stop).build())
+                .setOngoing(true)
+                .build();
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.myapplication.sampling;
+
+import com.example.myapplication.cell.NeighborCellReport;
+import com.example.myapplication.cell.PrimaryCellReport;
+
+// Both views of one pass over the modem's cell lists, see CellScanner.
+public final class CellScan {
+    public final CellSnapshot<PrimaryCellReport> primary;
+    public final CellSnapshot<NeighborCellReport> neighbors;
+
+    public CellScan(CellSnapshot<PrimaryCellReport> primary, CellSnapshot<NeighborCellReport> neighbors) {
+        this.primary = primary;
+        this.neighbors = neighbors;
+    }
+}
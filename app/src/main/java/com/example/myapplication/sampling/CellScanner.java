@@ -0,0 +1,108 @@
+package com.example.myapplication.sampling;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.telephony.CellInfo;
+import android.telephony.SubscriptionInfo;
+import android.telephony.SubscriptionManager;
+import android.telephony.TelephonyManager;
+import android.util.Log;
+import com.example.myapplication.cell.NeighborCellReport;
+import com.example.myapplication.cell.PrimaryCellReport;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// One query per active subscription and one pass over each list: registered cells go to that
+// SIM's serving cell candidates, unregistered ones to the shared neighbor list, deduplicated
+// across SIMs that see the same towers. Replaces the separate primary and neighbor scans, which
+// each queried and walked the same lists. Callers must hold ACCESS_FINE_LOCATION and
+// READ_PHONE_STATE.
+public final class CellScanner {
+
+    // The registered cells of one SIM, or why there are none to choose from.
+    public static final class SimCells {
+        public final SubscriptionInfo subscriptionInfo;
+        public final List<CellInfo> registeredCells = new ArrayList<>();
+        public String unavailableReason; // Set instead of registeredCells when the SIM could not be read
+
+        SimCells(SubscriptionInfo subscriptionInfo) {
+            this.subscriptionInfo = subscriptionInfo;
+        }
+    }
+
+    private CellScanner() {
+    }
+
+    @SuppressLint("MissingPermission")
+    public static CellScan scan(Context context, CellInfoSource source, boolean verbose) {
+        long timestampMs = System.currentTimeMillis();
+        SubscriptionManager subscriptionManager = (SubscriptionManager) context.getSystemService(Context.TELEPHONY_SUBSCRIPTION_SERVICE);
+        TelephonyManager telephonyManager = (TelephonyManager) context.getSystemService(Context.TELEPHONY_SERVICE);
+
+        if (subscriptionManager == null || telephonyManager == null) {
+            String message = "SubscriptionManager or TelephonyManager not available";
+            return new CellScan(new CellSnapshot<>(timestampMs, message, null, 0),
+                    new CellSnapshot<>(timestampMs, message, null, 0));
+        }
+
+        List<SubscriptionInfo> subscriptionInfos = subscriptionManager.getActiveSubscriptionInfoList();
+        List<SimCells> simCells = new ArrayList<>();
+        List<CellInfo> neighbors = new ArrayList<>();
+        Set<Object> neighborIdentities = new HashSet<>();
+        int cellsSeen = 0;
+
+        if (subscriptionInfos == null || subscriptionInfos.isEmpty()) {
+            // Without a SIM the modem still reports the towers around it
+            List<CellInfo> cellInfos = source.getAllCellInfo(telephonyManager, SubscriptionManager.INVALID_SUBSCRIPTION_ID);
+            cellsSeen += classify(cellInfos, null, neighbors, neighborIdentities);
+        } else {
+            for (SubscriptionInfo subscriptionInfo : subscriptionInfos) {
+                int subId = subscriptionInfo.getSubscriptionId();
+                SimCells sim = new SimCells(subscriptionInfo);
+                simCells.add(sim);
+
+                TelephonyManager simTelephonyManager = telephonyManager.createForSubscriptionId(subId);
+                if (simTelephonyManager == null) {
+                    sim.unavailableReason = "TelephonyManager for subId " + subId + " is null";
+                    continue;
+                }
+                List<CellInfo> cellInfos = source.getAllCellInfo(simTelephonyManager, subId);
+                if (verbose) {
+                    Log.d("CellInfo", "SIM " + (subscriptionInfo.getSimSlotIndex() + 1) + " subId: " + subId
+                            + ", MCC: " + subscriptionInfo.getMccString() + ", MNC: " + subscriptionInfo.getMncString()
+                            + ", cellInfos size: " + (cellInfos != null ? cellInfos.size() : 0));
+                }
+                if (cellInfos == null || cellInfos.isEmpty()) {
+                    sim.unavailableReason = "No cell info available";
+                    continue;
+                }
+                cellsSeen += classify(cellInfos, sim, neighbors, neighborIdentities);
+            }
+        }
+
+        CellSnapshot<PrimaryCellReport> primary =
+                PrimaryCellReportBuilder.build(timestampMs, simCells, verbose);
+        CellSnapshot<NeighborCellReport> neighborSnapshot =
+                NeighborCellReportBuilder.build(timestampMs, cellsSeen == 0 ? null : neighbors, verbose);
+        return new CellScan(primary, neighborSnapshot);
+    }
+
+    private static int classify(List<CellInfo> cellInfos, SimCells sim, List<CellInfo> neighbors,
+                                Set<Object> neighborIdentities) {
+        if (cellInfos == null) {
+            return 0;
+        }
+        for (CellInfo cellInfo : cellInfos) {
+            if (cellInfo.isRegistered()) {
+                if (sim != null) {
+                    sim.registeredCells.add(cellInfo);
+                }
+            } else if (neighborIdentities.add(cellInfo.getCellIdentity())) {
+                neighbors.add(cellInfo);
+            }
+        }
+        return cellInfos.size();
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.myapplication.sampling;
+
+// Immutable result of one scan: the text the fragments display and the report that was sent,
+// or null when the scan found nothing to report.
+public final class CellSnapshot<R> {
+    public final long timestampMs;
+    public final String text;
+    public final R report;
+    public final long measuredElapsedMs; // SystemClock.elapsedRealtime() of the oldest measurement in the report, 0 if none
+
+    public CellSnapshot(long timestampMs, String text, R report, long measuredElapsedMs) {
+        this.timestampMs = timestampMs;
+        this.text = text;
+        this.report = report;
+        this.measuredElapsedMs = measuredElapsedMs;
+    }
+}
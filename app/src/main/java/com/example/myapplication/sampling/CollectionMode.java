@@ -0,0 +1,6 @@
+package com.example.myapplication.sampling;
+
+public enum CollectionMode {
+    POLLING, // getAllCellInfo() on fixed timers
+    EVENTS   // Scans on TelephonyCallback pushes, see TelephonyEventCollector; needs API 31
+}
@@ -0,0 +1,52 @@
+package com.example.myapplication.sampling;
+
+// Tick times for a fixed-rate task on the monotonic clock. Each delay is computed from the
+// ideal slot times rather than from when the last run finished, so scan durations and
+// scheduler latency do not accumulate as drift. Slots missed because a run overran are
+// skipped and counted instead of being run back to back. Not thread-safe; owned by the
+// sampling thread.
+public class FixedRateSchedule {
+    private long intervalNanos;
+    private long nextNanos;
+    private long skipped;
+
+    public FixedRateSchedule(long intervalNanos, long startNanos) {
+        if (intervalNanos <= 0) {
+            throw new IllegalArgumentException("Interval must be positive");
+        }
+        this.intervalNanos = intervalNanos;
+        this.nextNanos = startNanos;
+    }
+
+    // How late a run starting at nowNanos is relative to its slot.
+    public long latenessNanos(long nowNanos) {
+        return nowNanos - nextNanos;
+    }
+
+    // Moves to the first slot after nowNanos and returns the delay until it.
+    public long advance(long nowNanos) {
+        nextNanos += intervalNanos;
+        if (nextNanos <= nowNanos) {
+            long missed = (nowNanos - nextNanos) / intervalNanos + 1;
+            skipped += missed;
+            nextNanos += missed * intervalNanos;
+        }
+        return nextNanos - nowNanos;
+    }
+
+    // Applies from the slot after the current one; slots already passed are not revisited.
+    public void setIntervalNanos(long intervalNanos) {
+        if (intervalNanos <= 0) {
+            throw new IllegalArgumentException("Interval must be positive");
+        }
+        this.intervalNanos = intervalNanos;
+    }
+
+    public long getIntervalNanos() {
+        return intervalNanos;
+    }
+
+    public long getSkippedCount() {
+        return skipped;
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.myapplication.sampling;
+
+import android.telephony.CellIdentityGsm;
+import android.telephony.CellIdentityLte;
+import android.telephony.CellIdentityNr;
+import android.telephony.CellIdentityWcdma;
+import android.telephony.CellInfo;
+import android.telephony.CellInfoGsm;
+import android.telephony.CellInfoLte;
+import android.telephony.CellInfoNr;
+import android.telephony.CellInfoWcdma;
+import android.telephony.CellSignalStrengthGsm;
+import android.telephony.CellSignalStrengthLte;
+import android.telephony.CellSignalStrengthNr;
+import android.telephony.CellSignalStrengthWcdma;
+import android.util.Log;
+import com.example.myapplication.cell.CellMeasurement;
+import com.example.myapplication.cell.NeighborCellReport;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Formats the unregistered cells CellScanner collected across all active SIMs.
+public final class NeighborCellReportBuilder {
+
+    private static final Map<String, String> CARRIER_MAP = new HashMap<>();
+    static {
+        CARRIER_MAP.put("64601", "Airtel");
+        CARRIER_MAP.put("64604", "TELMA");
+    }
+
+    private NeighborCellReportBuilder() {
+    }
+
+    public static CellSnapshot<NeighborCellReport> build(long timestampMs, List<CellInfo> cellInfos, boolean verbose) {
+        if (cellInfos == null) {
+            return new CellSnapshot<>(timestampMs, "No neighboring cell info available", null, 0);
+        }
+
+        StringBuilder infoBuilder = new StringBuilder();
+        List<CellMeasurement> neighbors = new ArrayList<>();
+        infoBuilder.append("Neighboring Cell Towers:\n\n");
+        int neighborCount = 0;
+        long measuredElapsedMs = Long.MAX_VALUE;
+
+        for (CellInfo cellInfo : cellInfos) {
+            neighborCount++;
+            measuredElapsedMs = Math.min(measuredElapsedMs, cellInfo.getTimestampMillis());
+            String carrierName = "Unknown Carrier";
+            String mcc = null;
+            String mnc = null;
+
+            if (cellInfo instanceof CellInfoLte) {
+                CellInfoLte cellInfoLte = (CellInfoLte) cellInfo;
+                CellIdentityLte identity = cellInfoLte.getCellIdentity();
+                CellSignalStrengthLte signal = cellInfoLte.getCellSignalStrength();
+
+                mcc = identity.getMccString();
+                mnc = identity.getMncString();
+                carrierName = getCarrierName(identity.getOperatorAlphaLong(), identity.getOperatorAlphaShort(), mcc, mnc);
+
+                infoBuilder.append("Neighbor ").append(neighborCount).append(" (LTE):\n")
+                        .append("  Carrier: ").append(carrierName).append("\n")
+                        .append("  PCI: ").append(identity.getPci()).append("\n")
+                        .append("  TAC: ").append(identity.getTac()).append("\n")
+                        .append("  CI: ").append(identity.getCi()).append("\n")
+                        .append("  Band: ").append(identity.getEarfcn()).append("\n")
+                        .append("  RSRP: ").append(signal.getRsrp()).append(" dBm\n")
+                        .append("  RSRQ: ").append(signal.getRsrq()).append(" dB\n")
+                        .append("  MCC: ").append(mcc != null ? mcc : "N/A").append("\n")
+                        .append("  MNC: ").append(mnc != null ? mnc : "N/A").append("\n\n");
+
+                neighbors.add(CellMeasurement.lte(carrierName, mcc != null ? mcc : "N/A", mnc != null ? mnc : "N/A",
+                        identity.getPci(), identity.getTac(), identity.getCi(), identity.getEarfcn(),
+                        signal.getRsrp(), signal.getRsrq()));
+            } else if (cellInfo instanceof CellInfoNr) {
+                CellInfoNr cellInfoNr = (CellInfoNr) cellInfo;
+                CellIdentityNr identity = (CellIdentityNr) cellInfoNr.getCellIdentity();
+                CellSignalStrengthNr signal = (CellSignalStrengthNr) cellInfoNr.getCellSignalStrength();
+
+                mcc = identity.getMccString();
+                mnc = identity.getMncString();
+                carrierName = getCarrierName(identity.getOperatorAlphaLong(), identity.getOperatorAlphaShort(), mcc, mnc);
+
+                infoBuilder.append("Neighbor ").append(neighborCount).append(" (5G NR):\n")
+                        .append("  Carrier: ").append(carrierName).append("\n")
+                        .append("  PCI: ").append(identity.getPci()).append("\n")
+                        .append("  TAC: ").append(identity.getTac()).append("\n")
+                        .append("  NCI: ").append(identity.getNci()).append("\n")
+                        .append("  SS-RSRP: ").append(signal.getSsRsrp()).append(" dBm\n")
+                        .append("  SS-RSRQ: ").append(signal.getSsRsrq()).append(" dB\n")
+                        .append("  MCC: ").append(mcc != null ? mcc : "N/A").append("\n")
+                        .append("  MNC: ").append(mnc != null ? mnc : "N/A").append("\n\n");
+
+                neighbors.add(CellMeasurement.nr(carrierName, mcc != null ? mcc : "N/A", mnc != null ? mnc : "N/A",
+                        identity.getPci(), identity.getTac(), identity.getNci(),
+                        signal.getSsRsrp(), signal.getSsRsrq()));
+            } else if (cellInfo instanceof CellInfoGsm) {
+                CellInfoGsm cellInfoGsm = (CellInfoGsm) cellInfo;
+                CellIdentityGsm identity = cellInfoGsm.getCellIdentity();
+                CellSignalStrengthGsm signal = cellInfoGsm.getCellSignalStrength();
+
+                mcc = identity.getMccString();
+                mnc = identity.getMncString();
+                carrierName = getCarrierName(identity.getOperatorAlphaLong(), identity.getOperatorAlphaShort(), mcc, mnc);
+
+                infoBuilder.append("Neighbor ").append(neighborCount).append(" (GSM):\n")
+                        .append("  Carrier: ").append(carrierName).append("\n")
+                        .append("  LAC: ").append(identity.getLac()).append("\n")
+                        .append("  CID: ").append(identity.getCid()).append("\n")
+                        .append("  RSSI: ").append(signal.getDbm()).append(" dBm\n")
+                        .append("  MCC: ").append(mcc != null ? mcc : "N/A").append("\n")
+                        .append("  MNC: ").append(mnc != null ? mnc : "N/A").append("\n\n");
+
+                neighbors.add(CellMeasurement.gsm(carrierName, mcc != null ? mcc : "N/A", mnc != null ? mnc : "N/A",
+                        identity.getLac(), identity.getCid(), signal.getDbm()));
+            } else if (cellInfo instanceof CellInfoWcdma) {
+                CellInfoWcdma cellInfoWcdma = (CellInfoWcdma) cellInfo;
+                CellIdentityWcdma identity = cellInfoWcdma.getCellIdentity();
+                CellSignalStrengthWcdma signal = cellInfoWcdma.getCellSignalStrength();
+
+                mcc = identity.getMccString();
+                mnc = identity.getMncString();
+                carrierName = getCarrierName(identity.getOperatorAlphaLong(), identity.getOperatorAlphaShort(), mcc, mnc);
+
+                infoBuilder.append("Neighbor ").append(neighborCount).append(" (WCDMA):\n")
+                        .append("  Carrier: ").append(carrierName).append("\n")
+                        .append("  LAC: ").append(identity.getLac()).append("\n")
+                        .append("  CID: ").append(identity.getCid()).append("\n")
+                        .append("  RSSI: ").append(signal.getDbm()).append(" dBm\n")
+                        .append("  MCC: ").append(mcc != null ? mcc : "N/A").append("\n")
+                        .append("  MNC: ").append(mnc != null ? mnc : "N/A").append("\n\n");
+
+                neighbors.add(CellMeasurement.wcdma(carrierName, mcc != null ? mcc : "N/A", mnc != null ? mnc : "N/A",
+                        identity.getLac(), identity.getCid(), signal.getDbm()));
+            } else {
+                infoBuilder.append("Neighbor ").append(neighborCount).append(" (Unknown):\n")
+                        .append("  Carrier: ").append(carrierName).append("\n")
+                        .append("  Unknown cell type\n\n");
+
+                neighbors.add(CellMeasurement.unknown(carrierName));
+            }
+        }
+
+        if (neighborCount == 0) {
+            infoBuilder.append("No neighboring cell towers found\n");
+        }
+
+        String cellInfoString = infoBuilder.toString();
+        if (verbose) {
+            Log.d("NeighboringCellInfo", cellInfoString);
+        }
+        return new CellSnapshot<>(timestampMs, cellInfoString, new NeighborCellReport(timestampMs, neighbors),
+                measuredElapsedMs == Long.MAX_VALUE ? 0 : measuredElapsedMs);
+    }
+
+    private static String getCarrierName(CharSequence alphaLong, CharSequence alphaShort, String mcc, String mnc) {
+        if (alphaLong != null && alphaLong.length() > 0) {
+            return alphaLong.toString();
+        }
+        if (alphaShort != null && alphaShort.length() > 0) {
+            return alphaShort.toString();
+        }
+
+        if (mcc != null && mnc != null) {
+            String key = mcc + (mnc.length() == 2 ? "0" + mnc : mnc);
+            String carrier = CARRIER_MAP.get(key);
+            if (carrier != null) {
+                return carrier;
+            }
+        }
+
+        return "Unknown Carrier";
+    }
+}
\ No newline at end of file
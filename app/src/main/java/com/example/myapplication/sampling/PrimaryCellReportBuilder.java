@@ -0,0 +1,173 @@
+package com.example.myapplication.sampling;
+
+import android.telephony.CellIdentityGsm;
+import android.telephony.CellIdentityLte;
+import android.telephony.CellIdentityNr;
+import android.telephony.CellIdentityWcdma;
+import android.telephony.CellInfo;
+import android.telephony.CellInfoGsm;
+import android.telephony.CellInfoLte;
+import android.telephony.CellInfoNr;
+import android.telephony.CellInfoWcdma;
+import android.telephony.CellSignalStrengthGsm;
+import android.telephony.CellSignalStrengthLte;
+import android.telephony.CellSignalStrengthNr;
+import android.telephony.CellSignalStrengthWcdma;
+import android.telephony.SubscriptionInfo;
+import android.util.Log;
+import com.example.myapplication.cell.CellMeasurement;
+import com.example.myapplication.cell.PrimaryCellReport;
+import com.example.myapplication.cell.SimCellReport;
+import java.util.ArrayList;
+import java.util.List;
+
+// Picks and formats the serving cell of every active SIM from the registered cells CellScanner
+// collected for it.
+public final class PrimaryCellReportBuilder {
+
+    private PrimaryCellReportBuilder() {
+    }
+
+    public static CellSnapshot<PrimaryCellReport> build(long timestampMs, List<CellScanner.SimCells> simCells, boolean verbose) {
+        if (simCells.isEmpty()) {
+            return new CellSnapshot<>(timestampMs, "No active SIMs found", null, 0);
+        }
+
+        StringBuilder infoBuilder = new StringBuilder();
+        List<SimCellReport> sims = new ArrayList<>();
+        long measuredElapsedMs = Long.MAX_VALUE;
+        infoBuilder.append("Total SIM slots: ").append(simCells.size()).append("\n\n");
+
+        for (CellScanner.SimCells sim : simCells) {
+            SubscriptionInfo subscriptionInfo = sim.subscriptionInfo;
+            int simSlotIndex = subscriptionInfo.getSimSlotIndex();
+            String carrierName = subscriptionInfo.getCarrierName().toString();
+            String mcc = subscriptionInfo.getMccString();
+            String mnc = subscriptionInfo.getMncString();
+
+            infoBuilder.append("SIM ").append(simSlotIndex + 1).append(" (").append(carrierName).append("):\n");
+            if (sim.unavailableReason != null) {
+                infoBuilder.append("  ").append(sim.unavailableReason).append("\n\n");
+                continue;
+            }
+
+            CellInfo primaryCell = null;
+            int bestSignalStrength = Integer.MIN_VALUE;
+
+            for (CellInfo cellInfo : sim.registeredCells) {
+                String cellMcc = null;
+                String cellMnc = null;
+                int signalStrength = Integer.MIN_VALUE;
+
+                if (cellInfo instanceof CellInfoLte) {
+                    CellInfoLte cellInfoLte = (CellInfoLte) cellInfo;
+                    CellIdentityLte identity = cellInfoLte.getCellIdentity();
+                    cellMcc = identity.getMccString();
+                    cellMnc = identity.getMncString();
+                    signalStrength = cellInfoLte.getCellSignalStrength().getRsrp();
+                } else if (cellInfo instanceof CellInfoNr) {
+                    CellInfoNr cellInfoNr = (CellInfoNr) cellInfo;
+                    CellIdentityNr identity = (CellIdentityNr) cellInfoNr.getCellIdentity();
+                    cellMcc = identity.getMccString();
+                    cellMnc = identity.getMncString();
+                    signalStrength = ((CellSignalStrengthNr) cellInfoNr.getCellSignalStrength()).getSsRsrp();
+                } else if (cellInfo instanceof CellInfoGsm) {
+                    CellInfoGsm cellInfoGsm = (CellInfoGsm) cellInfo;
+                    CellIdentityGsm identity = cellInfoGsm.getCellIdentity();
+                    cellMcc = identity.getMccString();
+                    cellMnc = identity.getMncString();
+                    signalStrength = cellInfoGsm.getCellSignalStrength().getDbm();
+                } else if (cellInfo instanceof CellInfoWcdma) {
+                    CellInfoWcdma cellInfoWcdma = (CellInfoWcdma) cellInfo;
+                    CellIdentityWcdma identity = cellInfoWcdma.getCellIdentity();
+                    cellMcc = identity.getMccString();
+                    cellMnc = identity.getMncString();
+                    signalStrength = cellInfoWcdma.getCellSignalStrength().getDbm();
+                }
+
+                if (mcc != null && mnc != null && mcc.equals(cellMcc) && mnc.equals(cellMnc)) {
+                    if (verbose) {
+                        Log.d("CellInfo", "SIM " + (simSlotIndex + 1) + " found matching cell, Signal: " + signalStrength + ", Type: " + cellInfo.getClass().getSimpleName());
+                    }
+                    if (signalStrength > bestSignalStrength) {
+                        bestSignalStrength = signalStrength;
+                        primaryCell = cellInfo;
+                    }
+                }
+            }
+
+            CellMeasurement servingCell = null;
+            if (primaryCell != null) {
+                measuredElapsedMs = Math.min(measuredElapsedMs, primaryCell.getTimestampMillis());
+                if (primaryCell instanceof CellInfoLte) {
+                    CellInfoLte cellInfoLte = (CellInfoLte) primaryCell;
+                    CellIdentityLte identity = cellInfoLte.getCellIdentity();
+                    CellSignalStrengthLte signal = cellInfoLte.getCellSignalStrength();
+
+                    infoBuilder.append("  Network: LTE\n")
+                            .append("  PCI: ").append(identity.getPci()).append("\n")
+                            .append("  TAC: ").append(identity.getTac()).append("\n")
+                            .append("  CI: ").append(identity.getCi()).append("\n")
+                            .append("  Band: ").append(identity.getEarfcn()).append("\n")
+                            .append("  RSRP: ").append(signal.getRsrp()).append(" dBm\n")
+                            .append("  RSRQ: ").append(signal.getRsrq()).append(" dB\n\n");
+
+                    servingCell = CellMeasurement.lte(null, null, null, identity.getPci(), identity.getTac(),
+                            identity.getCi(), identity.getEarfcn(), signal.getRsrp(), signal.getRsrq());
+                } else if (primaryCell instanceof CellInfoNr) {
+                    CellInfoNr cellInfoNr = (CellInfoNr) primaryCell;
+                    CellIdentityNr identity = (CellIdentityNr) cellInfoNr.getCellIdentity();
+                    CellSignalStrengthNr signal = (CellSignalStrengthNr) cellInfoNr.getCellSignalStrength();
+
+                    infoBuilder.append("  Network: 5G NR\n")
+                            .append("  PCI: ").append(identity.getPci()).append("\n")
+                            .append("  TAC: ").append(identity.getTac()).append("\n")
+                            .append("  NCI: ").append(identity.getNci()).append("\n")
+                            .append("  SS-RSRP: ").append(signal.getSsRsrp()).append(" dBm\n")
+                            .append("  SS-RSRQ: ").append(signal.getSsRsrq()).append(" dB\n\n");
+
+                    servingCell = CellMeasurement.nr(null, null, null, identity.getPci(), identity.getTac(),
+                            identity.getNci(), signal.getSsRsrp(), signal.getSsRsrq());
+                } else if (primaryCell instanceof CellInfoGsm) {
+                    CellInfoGsm cellInfoGsm = (CellInfoGsm) primaryCell;
+                    CellIdentityGsm identity = cellInfoGsm.getCellIdentity();
+                    CellSignalStrengthGsm signal = cellInfoGsm.getCellSignalStrength();
+
+                    infoBuilder.append("  Network: GSM\n")
+                            .append("  LAC: ").append(identity.getLac()).append("\n")
+                            .append("  CID: ").append(identity.getCid()).append("\n")
+                            .append("  RSSI: ").append(signal.getDbm()).append(" dBm\n\n");
+
+                    servingCell = CellMeasurement.gsm(null, null, null, identity.getLac(), identity.getCid(),
+                            signal.getDbm());
+                } else if (primaryCell instanceof CellInfoWcdma) {
+                    CellInfoWcdma cellInfoWcdma = (CellInfoWcdma) primaryCell;
+                    CellIdentityWcdma identity = cellInfoWcdma.getCellIdentity();
+                    CellSignalStrengthWcdma signal = cellInfoWcdma.getCellSignalStrength();
+
+                    infoBuilder.append("  Network: WCDMA\n")
+                            .append("  LAC: ").append(identity.getLac()).append("\n")
+                            .append("  CID: ").append(identity.getCid()).append("\n")
+                            .append("  RSSI: ").append(signal.getDbm()).append(" dBm\n\n");
+
+                    servingCell = CellMeasurement.wcdma(null, null, null, identity.getLac(), identity.getCid(),
+                            signal.getDbm());
+                } else {
+                    infoBuilder.append("  Unknown network type\n\n");
+                    servingCell = CellMeasurement.unknown(null);
+                }
+            } else {
+                infoBuilder.append("  No registered cell found for this SIM\n\n");
+            }
+            sims.add(new SimCellReport(simSlotIndex + 1, carrierName, mcc, mnc, servingCell));
+        }
+
+        String cellInfoString = infoBuilder.toString();
+        if (verbose) {
+            Log.d("CellInfo", cellInfoString);
+        }
+        return new CellSnapshot<>(timestampMs, cellInfoString,
+                new PrimaryCellReport(timestampMs, simCells.size(), sims),
+                measuredElapsedMs == Long.MAX_VALUE ? 0 : measuredElapsedMs);
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.myapplication.sampling;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Decides when TelephonyEventCollector may ask the modem for a fresh cell scan, per
+// subscription: at most once per minInterval, and otherwise only when the pushed data has gone
+// stale. Not thread-safe; used from the sampling thread only.
+public class RefreshThrottle {
+    private final long minIntervalNanos;
+    private final long staleAfterNanos;
+    private final Map<Integer, Long> lastRequestNanos = new HashMap<>();
+    private final Map<Integer, Long> lastDataNanos = new HashMap<>();
+    private final Map<Integer, Long> firstCheckNanos = new HashMap<>(); // Before any data
+
+    public RefreshThrottle(long minIntervalNanos, long staleAfterNanos) {
+        if (minIntervalNanos < 0 || staleAfterNanos <= 0) {
+            throw new IllegalArgumentException("Intervals must be positive");
+        }
+        this.minIntervalNanos = minIntervalNanos;
+        this.staleAfterNanos = staleAfterNanos;
+    }
+
+    // Records a request if one is allowed now.
+    public boolean tryRequest(int subscriptionId, long nowNanos) {
+        Long last = lastRequestNanos.get(subscriptionId);
+        if (last != null && nowNanos - last < minIntervalNanos) {
+            return false;
+        }
+        lastRequestNanos.put(subscriptionId, nowNanos);
+        return true;
+    }
+
+    public void onData(int subscriptionId, long nowNanos) {
+        lastDataNanos.put(subscriptionId, nowNanos);
+    }
+
+    // Data arrived within minInterval, so a scan now would most likely return the same cells.
+    public boolean hasRecentData(int subscriptionId, long nowNanos) {
+        Long last = lastDataNanos.get(subscriptionId);
+        return last != null && nowNanos - last < minIntervalNanos;
+    }
+
+    // No data has arrived for staleAfter, counting from the first check when none ever has.
+    public boolean isStale(int subscriptionId, long nowNanos) {
+        Long last = lastDataNanos.get(subscriptionId);
+        if (last == null) {
+            last = firstCheckNanos.get(subscriptionId);
+            if (last == null) {
+                firstCheckNanos.put(subscriptionId, nowNanos);
+                return false;
+            }
+        }
+        return nowNanos - last >= staleAfterNanos;
+    }
+
+    public void clear() {
+        lastRequestNanos.clear();
+        lastDataNanos.clear();
+        firstCheckNanos.clear();
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.myapplication.sampling;
+
+import java.util.Locale;
+
+// The scan interval in effect and why it was last changed.
+public final class SamplingRate {
+    public final long intervalMs;
+    public final String reason;
+    public final long changes;
+
+    public SamplingRate(long intervalMs, String reason, long changes) {
+        this.intervalMs = intervalMs;
+        this.reason = reason;
+        this.changes = changes;
+    }
+
+    public double getScansPerMinute() {
+        return 60_000.0 / intervalMs;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "Scan every %d ms (%.1f/min), %d changes: %s",
+                intervalMs, getScansPerMinute(), changes, reason);
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.myapplication.sampling;
+
+import java.util.function.Supplier;
+
+// Which cached scan pass each polling sender may reuse. Both accept a pass younger than the
+// cache TTL, whatever their own intervals, so neither report gets older than the TTL when the
+// adaptive interval stretches. The primary sender also never sends the same pass twice. Not
+// thread-safe; used from the sampling thread only.
+public class ScanPassPolicy<T> {
+    private final SnapshotCache<T> cache;
+    private T lastPrimary;
+
+    public ScanPassPolicy(SnapshotCache<T> cache) {
+        this.cache = cache;
+    }
+
+    public T forPrimary(long nowNanos, Supplier<T> loader) {
+        // A pass the neighbor sender took within the TTL will do, one already sent will not
+        long maxAge = cache.peek() == lastPrimary ? 0 : cache.getTtlNanos();
+        lastPrimary = cache.get(nowNanos, maxAge, loader);
+        return lastPrimary;
+    }
+
+    public T forNeighbors(long nowNanos, Supplier<T> loader) {
+        return cache.get(nowNanos, loader);
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.myapplication.sampling;
+
+import com.example.myapplication.metrics.Counter;
+import java.util.function.Supplier;
+
+// The latest value of an expensive load, reused by every reader until it is older than the TTL.
+// Loads are serialized, so readers arriving during a load wait for it instead of starting their
+// own. Thread-safe.
+public class SnapshotCache<T> {
+    private final Counter hits;
+    private final Counter misses;
+    private long ttlNanos;
+    private T value;
+    private long loadedAtNanos;
+
+    public SnapshotCache(long ttlNanos, Counter hits, Counter misses) {
+        setTtlNanos(ttlNanos);
+        this.hits = hits;
+        this.misses = misses;
+    }
+
+    public synchronized T get(long nowNanos, Supplier<T> loader) {
+        return get(nowNanos, ttlNanos, loader);
+    }
+
+    // As get(), for a reader that can accept values up to maxAgeNanos old instead of the TTL.
+    public synchronized T get(long nowNanos, long maxAgeNanos, Supplier<T> loader) {
+        if (value != null && nowNanos - loadedAtNanos < maxAgeNanos) {
+            hits.increment();
+            return value;
+        }
+        return refresh(nowNanos, loader);
+    }
+
+    // Loads regardless of age, e.g. when the source is known to have changed.
+    public synchronized T refresh(long nowNanos, Supplier<T> loader) {
+        misses.increment();
+        T loaded = loader.get();
+        if (loaded != null) {
+            value = loaded;
+            loadedAtNanos = nowNanos;
+        }
+        return loaded;
+    }
+
+    // The latest value however old, or null; never loads.
+    public synchronized T peek() {
+        return value;
+    }
+
+    // Age of the latest value, or -1 without one.
+    public synchronized long getAgeNanos(long nowNanos) {
+        return value == null ? -1 : nowNanos - loadedAtNanos;
+    }
+
+    public synchronized void setTtlNanos(long ttlNanos) {
+        if (ttlNanos < 0) {
+            throw new IllegalArgumentException("TTL must not be negative");
+        }
+        this.ttlNanos = ttlNanos;
+    }
+
+    public synchronized long getTtlNanos() {
+        return ttlNanos;
+    }
+
+    public synchronized void clear() {
+        value = null;
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.myapplication.sampling;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.os.Build;
+import android.telephony.CellInfo;
+import android.telephony.SignalStrength;
+import android.telephony.SubscriptionInfo;
+import android.telephony.SubscriptionManager;
+import android.telephony.TelephonyCallback;
+import android.telephony.TelephonyManager;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.RequiresApi;
+import com.example.myapplication.metrics.Counter;
+import com.example.myapplication.metrics.MetricsRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+// Event-driven CellInfoSource: keeps the latest cell list the modem pushed for each active
+// subscription through TelephonyCallback, instead of polling getAllCellInfo(). A signal strength
+// change asks the modem for a fresh scan unless it pushed a cell list for that subscription
+// within MIN_REQUEST_INTERVAL_MS; requests are rate limited to one per MIN_REQUEST_INTERVAL_MS,
+// and a subscription that has been quiet for too long gets one from the watchdog.
+// Callbacks run on the executor given to start(); listener is called there when a list changed.
+@RequiresApi(Build.VERSION_CODES.S)
+public class TelephonyEventCollector implements CellInfoSource {
+    public static final long MIN_REQUEST_INTERVAL_MS = 1000;
+    public static final long STALE_AFTER_MS = 30_000;
+
+    public interface Listener {
+        void onCellInfoChanged(int subscriptionId);
+    }
+
+    private final Executor executor;
+    private final Listener listener;
+    private final Map<Integer, List<CellInfo>> latest = new ConcurrentHashMap<>();
+    private final Map<Integer, TelephonyManager> managers = new ConcurrentHashMap<>();
+    private final Map<Integer, SubscriptionCallback> callbacks = new ConcurrentHashMap<>();
+    private final RefreshThrottle throttle = new RefreshThrottle(
+            TimeUnit.MILLISECONDS.toNanos(MIN_REQUEST_INTERVAL_MS), TimeUnit.MILLISECONDS.toNanos(STALE_AFTER_MS));
+    private final Counter callbackCount;
+    private final Counter newDataCount;
+    private final Counter requestCount;
+    private final Counter requestErrors;
+
+    private class SubscriptionCallback extends TelephonyCallback
+            implements TelephonyCallback.CellInfoListener, TelephonyCallback.SignalStrengthsListener {
+        private final int subscriptionId;
+
+        SubscriptionCallback(int subscriptionId) {
+            this.subscriptionId = subscriptionId;
+        }
+
+        @Override
+        public void onCellInfoChanged(@NonNull List<CellInfo> cellInfo) {
+            onCellInfo(subscriptionId, cellInfo);
+        }
+
+        @Override
+        public void onSignalStrengthsChanged(@NonNull SignalStrength signalStrength) {
+            // Signal levels changed, but the modem only pushes cell lists at its own pace
+            if (!throttle.hasRecentData(subscriptionId, System.nanoTime())) {
+                requestUpdate(subscriptionId);
+            }
+        }
+    }
+
+    public TelephonyEventCollector(Executor executor, MetricsRegistry metrics, Listener listener) {
+        this.executor = executor;
+        this.listener = listener;
+        this.callbackCount = metrics.counter("events.callbacks");
+        this.newDataCount = metrics.counter("events.new_data");
+        this.requestCount = metrics.counter("events.requests");
+        this.requestErrors = metrics.counter("events.request_errors");
+    }
+
+    // Registers a callback for every active subscription. Callers must hold ACCESS_FINE_LOCATION
+    // and READ_PHONE_STATE.
+    @SuppressLint("MissingPermission")
+    public void start(Context context) {
+        SubscriptionManager subscriptionManager = (SubscriptionManager) context.getSystemService(Context.TELEPHONY_SUBSCRIPTION_SERVICE);
+        TelephonyManager telephonyManager = (TelephonyManager) context.getSystemService(Context.TELEPHONY_SERVICE);
+        if (subscriptionManager == null || telephonyManager == null) {
+            Log.e("TelephonyEvents", "SubscriptionManager or TelephonyManager not available");
+            return;
+        }
+        List<SubscriptionInfo> subscriptionInfos = subscriptionManager.getActiveSubscriptionInfoList();
+        if (subscriptionInfos == null) {
+            return;
+        }
+        for (SubscriptionInfo subscriptionInfo : subscriptionInfos) {
+            int subId = subscriptionInfo.getSubscriptionId();
+            TelephonyManager simTelephonyManager = telephonyManager.createForSubscriptionId(subId);
+            if (simTelephonyManager == null) {
+                continue;
+            }
+            SubscriptionCallback callback = new SubscriptionCallback(subId);
+            simTelephonyManager.registerTelephonyCallback(executor, callback);
+            managers.put(subId, simTelephonyManager);
+            callbacks.put(subId, callback);
+            requestUpdate(subId); // Registration alone may not deliver anything until the next change
+        }
+        Log.d("TelephonyEvents", "Listening on " + callbacks.size() + " subscription(s)");
+    }
+
+    public void stop() {
+        for (Map.Entry<Integer, SubscriptionCallback> entry : callbacks.entrySet()) {
+            TelephonyManager manager = managers.get(entry.getKey());
+            if (manager != null) {
+                manager.unregisterTelephonyCallback(entry.getValue());
+            }
+        }
+        callbacks.clear();
+        managers.clear();
+        latest.clear();
+    }
+
+    // Called periodically on the executor: re-requests subscriptions that went quiet.
+    public void requestStaleUpdates() {
+        long now = System.nanoTime();
+        for (Integer subId : managers.keySet()) {
+            if (throttle.isStale(subId, now)) {
+                requestUpdate(subId);
+            }
+        }
+    }
+
+    @Override
+    @SuppressLint("MissingPermission")
+    public List<CellInfo> getAllCellInfo(TelephonyManager telephonyManager, int subscriptionId) {
+        List<CellInfo> cellInfos = latest.get(subscriptionId);
+        // Nothing pushed yet, or a subscription we do not listen on: fall back to the modem's cache
+        return cellInfos != null ? cellInfos : telephonyManager.getAllCellInfo();
+    }
+
+    @SuppressLint("MissingPermission")
+    private void requestUpdate(int subscriptionId) {
+        TelephonyManager manager = managers.get(subscriptionId);
+        if (manager == null || !throttle.tryRequest(subscriptionId, System.nanoTime())) {
+            return;
+        }
+        requestCount.increment();
+        try {
+            manager.requestCellInfoUpdate(executor, new TelephonyManager.CellInfoCallback() {
+                @Override
+                public void onCellInfo(@NonNull List<CellInfo> cellInfo) {
+                    onCellInfo(subscriptionId, cellInfo);
+                }
+
+                @Override
+                public void onError(int errorCode, Throwable detail) {
+                    requestErrors.increment();
+                    Log.e("TelephonyEvents", "Cell info request failed for subId " + subscriptionId + ": " + errorCode);
+                }
+            });
+        } catch (SecurityException e) {
+            requestErrors.increment();
+            Log.e("TelephonyEvents", "Cell info request not permitted: " + e.getMessage());
+        }
+    }
+
+    private void onCellInfo(int subscriptionId, List<CellInfo> cellInfo) {
+        callbackCount.increment();
+        throttle.onData(subscriptionId, System.nanoTime());
+        List<CellInfo> previous = latest.put(subscriptionId, new ArrayList<>(cellInfo));
+        if (previous == null || !sameCells(previous, cellInfo)) {
+            newDataCount.increment();
+            listener.onCellInfoChanged(subscriptionId);
+        }
+    }
+
+    // CellInfo.equals() also compares timestamps, so a re-delivery of unchanged cells would
+    // otherwise count as new data.
+    private static boolean sameCells(List<CellInfo> a, List<CellInfo> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            CellInfo x = a.get(i);
+            CellInfo y = b.get(i);
+            if (x.isRegistered() != y.isRegistered()
+                    || !Objects.equals(x.getCellIdentity(), y.getCellIdentity())
+                    || !Objects.equals(x.getCellSignalStrength(), y.getCellSignalStrength())) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
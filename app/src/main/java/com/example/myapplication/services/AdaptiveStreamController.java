@@ -0,0 +1,125 @@
+package com.example.myapplication.services;
+
+// Adjusts the camera frame interval and JPEG quality from the image socket's send queue.
+// Each sample compares how many bytes were enqueued against how many left the queue;
+// a growing queue backs off multiplicatively, while an empty queue (or a short one that
+// drains faster than frames arrive) recovers quality first and then frame rate. Thread-safe.
+public class AdaptiveStreamController {
+    public static final long DEFAULT_MIN_INTERVAL_MS = 250;
+    public static final long DEFAULT_MAX_INTERVAL_MS = 4000;
+    public static final int DEFAULT_MIN_QUALITY = 30;
+    public static final int DEFAULT_MAX_QUALITY = 85;
+
+    private static final long INITIAL_INTERVAL_MS = 1000;
+    private static final int INITIAL_QUALITY = 70;
+    private static final long HIGH_WATER_BYTES = 512 * 1024; // Back off above this much queued data
+    private static final int QUALITY_STEP_DOWN = 10;
+    private static final int QUALITY_STEP_UP = 5;
+    private static final double INTERVAL_BACKOFF = 1.5;
+    private static final double INTERVAL_RECOVERY = 0.9;
+    private static final double HEADROOM = 1.25; // Drain rate must exceed demand by this factor to speed up
+    private static final double EWMA_WEIGHT = 0.3;
+
+    private final long minIntervalMs;
+    private final long maxIntervalMs;
+    private final int minQuality;
+    private final int maxQuality;
+
+    private volatile long frameIntervalMs;
+    private volatile int jpegQuality;
+    private volatile double drainRateBytesPerSec;
+    private double averageFrameBytes;
+
+    private long lastSampleTimeMs = -1;
+    private long lastQueueBytes;
+    private long lastEnqueuedBytes;
+
+    public AdaptiveStreamController() {
+        this(DEFAULT_MIN_INTERVAL_MS, DEFAULT_MAX_INTERVAL_MS, DEFAULT_MIN_QUALITY, DEFAULT_MAX_QUALITY);
+    }
+
+    public AdaptiveStreamController(long minIntervalMs, long maxIntervalMs, int minQuality, int maxQuality) {
+        if (minIntervalMs <= 0 || maxIntervalMs < minIntervalMs || minQuality < 1 || maxQuality > 100 || maxQuality < minQuality) {
+            throw new IllegalArgumentException("Invalid stream controller bounds");
+        }
+        this.minIntervalMs = minIntervalMs;
+        this.maxIntervalMs = maxIntervalMs;
+        this.minQuality = minQuality;
+        this.maxQuality = maxQuality;
+        this.frameIntervalMs = clamp(INITIAL_INTERVAL_MS, minIntervalMs, maxIntervalMs);
+        this.jpegQuality = (int) clamp(INITIAL_QUALITY, minQuality, maxQuality);
+    }
+
+    public long getFrameIntervalMs() {
+        return frameIntervalMs;
+    }
+
+    public int getJpegQuality() {
+        return jpegQuality;
+    }
+
+    public double getDrainRateBytesPerSec() {
+        return drainRateBytesPerSec;
+    }
+
+    // Forget the previous queue sample, e.g. after the socket was replaced.
+    public synchronized void resetSamples() {
+        lastSampleTimeMs = -1;
+    }
+
+    public synchronized void onFrameEncoded(int frameBytes) {
+        averageFrameBytes = averageFrameBytes == 0
+                ? frameBytes
+                : averageFrameBytes + EWMA_WEIGHT * (frameBytes - averageFrameBytes);
+    }
+
+    // queueBytes is WebSocket.queueSize(); enqueuedBytes is the running total handed to send().
+    // Returns true when the interval or quality target changed.
+    public synchronized boolean onSample(long nowMs, long queueBytes, long enqueuedBytes) {
+        if (lastSampleTimeMs < 0 || nowMs <= lastSampleTimeMs) {
+            lastSampleTimeMs = nowMs;
+            lastQueueBytes = queueBytes;
+            lastEnqueuedBytes = enqueuedBytes;
+            return false;
+        }
+
+        long elapsedMs = nowMs - lastSampleTimeMs;
+        long drained = (enqueuedBytes - lastEnqueuedBytes) - (queueBytes - lastQueueBytes);
+        double rate = Math.max(0, drained) * 1000.0 / elapsedMs;
+        drainRateBytesPerSec = drainRateBytesPerSec == 0
+                ? rate
+                : drainRateBytesPerSec + EWMA_WEIGHT * (rate - drainRateBytesPerSec);
+        boolean growing = queueBytes > lastQueueBytes;
+
+        lastSampleTimeMs = nowMs;
+        lastQueueBytes = queueBytes;
+        lastEnqueuedBytes = enqueuedBytes;
+
+        long interval = frameIntervalMs;
+        int quality = jpegQuality;
+        if (queueBytes > HIGH_WATER_BYTES || (growing && queueBytes > averageFrameBytes * 2)) {
+            quality = Math.max(minQuality, quality - QUALITY_STEP_DOWN);
+            interval = clamp((long) (interval * INTERVAL_BACKOFF), minIntervalMs, maxIntervalMs);
+        } else if (queueBytes == 0 || (queueBytes <= averageFrameBytes && hasHeadroom(interval))) {
+            if (quality < maxQuality) {
+                quality = Math.min(maxQuality, quality + QUALITY_STEP_UP);
+            } else {
+                interval = clamp((long) (interval * INTERVAL_RECOVERY), minIntervalMs, maxIntervalMs);
+            }
+        }
+
+        boolean changed = interval != frameIntervalMs || quality != jpegQuality;
+        frameIntervalMs = interval;
+        jpegQuality = quality;
+        return changed;
+    }
+
+    private boolean hasHeadroom(long intervalMs) {
+        double demand = averageFrameBytes * 1000.0 / intervalMs;
+        return drainRateBytesPerSec >= demand * HEADROOM;
+    }
+
+    private static long clamp(long value, long min, long max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.myapplication.services;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+// Shared pieces of the cell delta format used by CellDeltaEncoder and CellDeltaDecoder.
+//
+// A message is first turned into a "state": top-level arrays of cells (e.g. "neighbors") become
+// objects keyed by cell identity plus a "<field>#order" array, so a cell's patch does not depend
+// on its position. Deltas are JSON merge patches (RFC 7386) between two states: changed values
+// are included, nested objects are patched recursively and removed keys are set to null.
+//
+// Envelopes:
+// {"type":"keyframe","stream":"<message type>","seq":N,"data":<full message>}
+// {"type":"delta","stream":"<message type>","seq":N,"base":M,"patch":<merge patch>}
+final class CellDeltaCodec {
+    static final String TYPE_KEYFRAME = "keyframe";
+    static final String TYPE_DELTA = "delta";
+    static final String ORDER_SUFFIX = "#order";
+
+    // Identity fields that name a cell; signal fields are left out so they can change.
+    private static final String[] IDENTITY_FIELDS = {"network", "pci", "band", "ci", "nci", "tac", "lac", "cid"};
+
+    private CellDeltaCodec() {
+    }
+
+    static JSONObject toState(JSONObject message) throws JSONException {
+        JSONObject state = new JSONObject();
+        Iterator<String> keys = message.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            Object value = message.get(key);
+            if (value instanceof JSONArray && isCellArray((JSONArray) value)) {
+                JSONArray cells = (JSONArray) value;
+                JSONObject keyed = new JSONObject();
+                JSONArray order = new JSONArray();
+                for (int i = 0; i < cells.length(); i++) {
+                    JSONObject cell = cells.getJSONObject(i);
+                    String cellKey = cellKey(cell);
+                    String uniqueKey = cellKey;
+                    for (int n = 2; keyed.has(uniqueKey); n++) {
+                        uniqueKey = cellKey + "#" + n;
+                    }
+                    keyed.put(uniqueKey, copy(cell));
+                    order.put(uniqueKey);
+                }
+                state.put(key, keyed);
+                state.put(key + ORDER_SUFFIX, order);
+            } else {
+                state.put(key, copy(value));
+            }
+        }
+        return state;
+    }
+
+    static JSONObject fromState(JSONObject state) throws JSONException {
+        JSONObject message = new JSONObject();
+        Iterator<String> keys = state.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            if (key.endsWith(ORDER_SUFFIX)) {
+                continue;
+            }
+            JSONArray order = state.optJSONArray(key + ORDER_SUFFIX);
+            if (order != null) {
+                JSONObject keyed = state.getJSONObject(key);
+                JSONArray cells = new JSONArray();
+                for (int i = 0; i < order.length(); i++) {
+                    cells.put(copy(keyed.get(order.getString(i))));
+                }
+                message.put(key, cells);
+            } else {
+                message.put(key, copy(state.get(key)));
+            }
+        }
+        return message;
+    }
+
+    private static boolean isCellArray(JSONArray array) {
+        for (int i = 0; i < array.length(); i++) {
+            if (!(array.opt(i) instanceof JSONObject)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String cellKey(JSONObject cell) {
+        StringBuilder key = new StringBuilder();
+        for (String field : IDENTITY_FIELDS) {
+            if (cell.has(field)) {
+                key.append(field).append('=').append(cell.opt(field)).append(';');
+            }
+        }
+        return key.toString();
+    }
+
+    static JSONObject diff(JSONObject base, JSONObject target) throws JSONException {
+        JSONObject patch = new JSONObject();
+        Set<String> seen = new HashSet<>();
+        Iterator<String> keys = target.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            seen.add(key);
+            Object value = target.get(key);
+            Object previous = base.opt(key);
+            if (value instanceof JSONObject && previous instanceof JSONObject) {
+                JSONObject nested = diff((JSONObject) previous, (JSONObject) value);
+                if (nested.length() > 0) {
+                    patch.put(key, nested);
+                }
+            } else if (!sameValue(previous, value)) {
+                patch.put(key, copy(value));
+            }
+        }
+        Iterator<String> baseKeys = base.keys();
+        while (baseKeys.hasNext()) {
+            String key = baseKeys.next();
+            if (!seen.contains(key)) {
+                patch.put(key, JSONObject.NULL);
+            }
+        }
+        return patch;
+    }
+
+    static void apply(JSONObject target, JSONObject patch) throws JSONException {
+        Iterator<String> keys = patch.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            Object value = patch.get(key);
+            Object current = target.opt(key);
+            if (value == JSONObject.NULL) {
+                target.remove(key);
+            } else if (value instanceof JSONObject && current instanceof JSONObject) {
+                apply((JSONObject) current, (JSONObject) value);
+            } else {
+                target.put(key, copy(value));
+            }
+        }
+    }
+
+    private static boolean sameValue(Object a, Object b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        if (a instanceof Number && b instanceof Number) {
+            return a.toString().equals(b.toString());
+        }
+        if (a instanceof JSONArray && b instanceof JSONArray) {
+            return a.toString().equals(b.toString());
+        }
+        return a.equals(b);
+    }
+
+    static Object copy(Object value) throws JSONException {
+        if (value instanceof JSONObject) {
+            return new JSONObject(value.toString());
+        }
+        if (value instanceof JSONArray) {
+            return new JSONArray(value.toString());
+        }
+        return value;
+    }
+}
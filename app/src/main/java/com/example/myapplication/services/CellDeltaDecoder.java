@@ -0,0 +1,73 @@
+package com.example.myapplication.services;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+// Reference decoder for CellDeltaEncoder output, as the server would run it: rebuilds full
+// messages from keyframes and deltas and reports gaps. Messages that are not delta envelopes
+// pass through unchanged. Thread-safe.
+public class CellDeltaDecoder {
+    private static final int MAX_STATES = 64;
+
+    private final Map<Integer, JSONObject> states = new LinkedHashMap<Integer, JSONObject>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, JSONObject> eldest) {
+            return size() > MAX_STATES;
+        }
+    };
+    private int lastSeq = -1;
+    private long gaps;
+    private boolean resyncNeeded;
+
+    // Returns the full message, or null if the delta's base is unknown; the server should then
+    // ask the client for a keyframe.
+    public synchronized String decode(String text) throws JSONException {
+        JSONObject envelope = new JSONObject(text);
+        String type = envelope.optString("type");
+        if (!CellDeltaCodec.TYPE_KEYFRAME.equals(type) && !CellDeltaCodec.TYPE_DELTA.equals(type)) {
+            return text;
+        }
+
+        int seq = envelope.getInt("seq");
+        if (lastSeq >= 0 && seq > lastSeq + 1) {
+            gaps++;
+        }
+        lastSeq = Math.max(lastSeq, seq);
+
+        JSONObject state;
+        if (CellDeltaCodec.TYPE_KEYFRAME.equals(type)) {
+            if (seq < lastSeq) {
+                // A keyframe older than what we have seen means the client restarted its sequence
+                states.clear();
+                lastSeq = seq;
+            }
+            state = CellDeltaCodec.toState(envelope.getJSONObject("data"));
+            resyncNeeded = false;
+        } else {
+            JSONObject base = states.get(envelope.getInt("base"));
+            if (base == null) {
+                resyncNeeded = true;
+                return null;
+            }
+            state = new JSONObject(base.toString());
+            CellDeltaCodec.apply(state, envelope.getJSONObject("patch"));
+        }
+        states.put(seq, state);
+        return CellDeltaCodec.fromState(state).toString();
+    }
+
+    // The ack the server sends back after decoding seq.
+    public static String ackMessage(String stream, int seq) throws JSONException {
+        return new JSONObject().put("type", "ack").put("stream", stream).put("seq", seq).toString();
+    }
+
+    public synchronized long getGapCount() {
+        return gaps;
+    }
+
+    public synchronized boolean isResyncNeeded() {
+        return resyncNeeded;
+    }
+}
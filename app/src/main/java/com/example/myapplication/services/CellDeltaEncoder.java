@@ -0,0 +1,146 @@
+package com.example.myapplication.services;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+// Turns a stream of full cell messages of one type into keyframes and merge-patch deltas, see
+// CellDeltaCodec for the format. Until the server acknowledges a sequence number, each delta is
+// relative to the previous message; once it does, deltas are relative to the newest
+// acknowledged message, so a lost frame costs nothing beyond a larger patch. A frame only
+// becomes a possible base once it is committed after a successful send; a prepared frame that
+// is never sent leaves a harmless gap in the sequence numbers. Thread-safe.
+public class CellDeltaEncoder {
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 20;
+    private static final int MAX_UNACKED_STATES = 64;
+
+    private final int keyframeInterval;
+    private final Map<Integer, JSONObject> sentStates = new LinkedHashMap<Integer, JSONObject>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, JSONObject> eldest) {
+            return size() > MAX_UNACKED_STATES;
+        }
+    };
+    private int nextSeq = 1;
+    private int lastSentSeq = -1;
+    private int ackedSeq = -1;
+    private int sinceKeyframe;
+    private boolean keyframeRequested = true;
+    private int keyframeRequestedAfter; // Only a keyframe with a later seq answers the request
+    private long keyframes;
+    private long deltas;
+    private long fullBytes;
+    private long encodedBytes;
+
+    public CellDeltaEncoder() {
+        this(DEFAULT_KEYFRAME_INTERVAL);
+    }
+
+    public CellDeltaEncoder(int keyframeInterval) {
+        if (keyframeInterval < 1) {
+            throw new IllegalArgumentException("Keyframe interval must be positive");
+        }
+        this.keyframeInterval = keyframeInterval;
+    }
+
+    // An encoded message waiting for the outcome of its send.
+    public final class Frame {
+        private final int seq;
+        private final JSONObject state;
+        private final boolean keyframe;
+        private final String text;
+        private final int fullLength;
+
+        private Frame(int seq, JSONObject state, boolean keyframe, String text, int fullLength) {
+            this.seq = seq;
+            this.state = state;
+            this.keyframe = keyframe;
+            this.text = text;
+            this.fullLength = fullLength;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        // The frame is on the socket: later deltas may be based on it.
+        public void commit() {
+            CellDeltaEncoder.this.commit(this);
+        }
+    }
+
+    public synchronized String encode(String json) throws JSONException {
+        Frame frame = prepare(json);
+        commit(frame);
+        return frame.text;
+    }
+
+    // Encodes json against the committed state without recording it as sent.
+    public synchronized Frame prepare(String json) throws JSONException {
+        JSONObject message = new JSONObject(json);
+        JSONObject state = CellDeltaCodec.toState(message);
+        int seq = nextSeq++;
+        int baseSeq = ackedSeq >= 0 ? ackedSeq : lastSentSeq;
+        JSONObject base = sentStates.get(baseSeq);
+
+        JSONObject envelope = new JSONObject();
+        envelope.put("stream", message.optString("type"));
+        envelope.put("seq", seq);
+        boolean keyframe = keyframeRequested || base == null || sinceKeyframe >= keyframeInterval - 1;
+        if (keyframe) {
+            envelope.put("type", CellDeltaCodec.TYPE_KEYFRAME);
+            envelope.put("data", message);
+        } else {
+            envelope.put("type", CellDeltaCodec.TYPE_DELTA);
+            envelope.put("base", baseSeq);
+            envelope.put("patch", CellDeltaCodec.diff(base, state));
+        }
+        return new Frame(seq, state, keyframe, envelope.toString(), json.length());
+    }
+
+    private synchronized void commit(Frame frame) {
+        if (frame.keyframe) {
+            if (frame.seq > keyframeRequestedAfter) {
+                keyframeRequested = false;
+            }
+            sinceKeyframe = 0;
+            keyframes++;
+        } else {
+            sinceKeyframe++;
+            deltas++;
+        }
+        sentStates.put(frame.seq, frame.state);
+        lastSentSeq = Math.max(lastSentSeq, frame.seq);
+        fullBytes += frame.fullLength;
+        encodedBytes += frame.text.length();
+    }
+
+    // The server has reconstructed seq; later deltas may be based on it.
+    public synchronized void onAck(int seq) {
+        if (seq > ackedSeq && sentStates.containsKey(seq)) {
+            ackedSeq = seq;
+            sentStates.keySet().removeIf(sent -> sent < seq);
+        }
+    }
+
+    // The server lost track, e.g. after a gap or a restart: the next message is a keyframe.
+    public synchronized void requestKeyframe() {
+        keyframeRequested = true;
+        keyframeRequestedAfter = nextSeq - 1; // Frames already prepared predate the request
+        ackedSeq = -1;
+    }
+
+    public synchronized long getKeyframeCount() {
+        return keyframes;
+    }
+
+    public synchronized long getDeltaCount() {
+        return deltas;
+    }
+
+    // Encoded size over the size of the full messages.
+    public synchronized double getSizeRatio() {
+        return fullBytes == 0 ? 0 : (double) encodedBytes / fullBytes;
+    }
+}
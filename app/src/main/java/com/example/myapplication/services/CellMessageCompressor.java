@@ -0,0 +1,107 @@
+package com.example.myapplication.services;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import okio.ByteString;
+
+// Per-message raw deflate for cell JSON, primed with a preset dictionary of the keys and values
+// our messages repeat. Each message is compressed independently so frames can be decoded in
+// any order. Frame: [byte flags][byte dictionary version][raw deflate data].
+//
+// Negotiated per socket: the client sends HEADER with VERSION_NAME on the upgrade request and
+// only compresses if the server echoes the same value back in its upgrade response.
+public final class CellMessageCompressor {
+    public static final String HEADER = "X-Cell-Compression";
+    public static final String VERSION_NAME = "deflate-dict-1";
+    public static final int FLAG_DEFLATE = 0x01;
+    public static final int DICTIONARY_VERSION = 1;
+    static final int FRAME_HEADER_SIZE = 2;
+
+    // Deflate favours nearer matches, so the most frequent strings are at the end.
+    private static final byte[] DICTIONARY = (
+            "\"ss_rsrq\":-\"ss_rsrp\":-\"nci\":\"network\":\"5G NR\","
+            + "\"network\":\"WCDMA\",\"network\":\"GSM\",\"rssi\":-\"lac\":\"network\":\"Unknown\""
+            + "{\"type\":\"batch\",\"count\":,\"samples\":[{\"timestamp\":,\"data\":"
+            + "\"sims\":{\"sim_1\":{\"sim_slot\":1,\"sim_2\":{\"sim_slot\":2,\"sim_count\":"
+            + "{\"type\":\"primary_cell\",\"cell\":{\"carrier\":\"Unknown Carrier\",\"mcc\":\"N/A\",\"mnc\":\"N/A\""
+            + "{\"type\":\"neighboring_cells\",\"neighbor_count\":\"neighbors\":["
+            + "\"cid\":\"tac\":\"band\":\"ci\":\"pci\":\"mcc\":\"mnc\":\"carrier\":"
+            + "},{\"network\":\"LTE\",\"rsrp\":-\"rsrq\":-"
+    ).getBytes(StandardCharsets.UTF_8);
+
+    private final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+    private final Inflater inflater = new Inflater(true);
+    private final byte[] chunk = new byte[4096];
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    private long messages;
+    private long inputBytes;
+    private long outputBytes;
+    private long compressNanos;
+
+    public synchronized ByteString compress(String json) {
+        long start = System.nanoTime();
+        byte[] input = json.getBytes(StandardCharsets.UTF_8);
+        deflater.reset();
+        deflater.setDictionary(DICTIONARY);
+        deflater.setInput(input);
+        deflater.finish();
+
+        output.reset();
+        output.write(FLAG_DEFLATE);
+        output.write(DICTIONARY_VERSION);
+        while (!deflater.finished()) {
+            int length = deflater.deflate(chunk);
+            output.write(chunk, 0, length);
+        }
+        ByteString frame = ByteString.of(output.toByteArray());
+
+        messages++;
+        inputBytes += input.length;
+        outputBytes += frame.size();
+        compressNanos += System.nanoTime() - start;
+        return frame;
+    }
+
+    // Reference decoder for the server side and tests.
+    public synchronized String decompress(ByteString frame) {
+        if (frame.size() < FRAME_HEADER_SIZE || (frame.getByte(0) & FLAG_DEFLATE) == 0) {
+            throw new IllegalArgumentException("Not a compressed cell frame");
+        }
+        if (frame.getByte(1) != DICTIONARY_VERSION) {
+            throw new IllegalArgumentException("Unknown dictionary version " + frame.getByte(1));
+        }
+        byte[] data = frame.substring(FRAME_HEADER_SIZE).toByteArray();
+        inflater.reset();
+        inflater.setDictionary(DICTIONARY);
+        inflater.setInput(data);
+        output.reset();
+        try {
+            while (!inflater.finished()) {
+                int length = inflater.inflate(chunk);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Truncated cell frame");
+                }
+                output.write(chunk, 0, length);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupt cell frame: " + e.getMessage());
+        }
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    public synchronized long getMessageCount() {
+        return messages;
+    }
+
+    // Compressed size over original size, 0 before the first message.
+    public synchronized double getCompressionRatio() {
+        return inputBytes == 0 ? 0 : (double) outputBytes / inputBytes;
+    }
+
+    public synchronized long getAverageCompressNanos() {
+        return messages == 0 ? 0 : compressNanos / messages;
+    }
+}
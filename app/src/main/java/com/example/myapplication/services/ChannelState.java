@@ -0,0 +1,9 @@
+package com.example.myapplication.services;
+
+public enum ChannelState {
+    IDLE,       // No socket; never connected or closed cleanly
+    CONNECTING, // Handshake in progress
+    OPEN,       // Ready to send
+    CLOSING,    // Close handshake started by either side
+    FAILED      // Last attempt or connection failed; see lastError
+}
@@ -0,0 +1,74 @@
+package com.example.myapplication.services;
+
+import java.util.Locale;
+
+// Immutable per-channel counters captured by TransportChannel.snapshot().
+public final class ChannelStats {
+    private final String name;
+    private final ChannelState state;
+    private final long messagesSent;
+    private final long bytesSent;
+    private final long queueBytes;
+    private final String lastError;
+    private final double rttP50Ms;
+    private final double rttP90Ms;
+    private final double rttP99Ms;
+
+    public ChannelStats(String name, ChannelState state, long messagesSent, long bytesSent, long queueBytes, String lastError,
+                        double rttP50Ms, double rttP90Ms, double rttP99Ms) {
+        this.name = name;
+        this.state = state;
+        this.messagesSent = messagesSent;
+        this.bytesSent = bytesSent;
+        this.queueBytes = queueBytes;
+        this.lastError = lastError;
+        this.rttP50Ms = rttP50Ms;
+        this.rttP90Ms = rttP90Ms;
+        this.rttP99Ms = rttP99Ms;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public ChannelState getState() {
+        return state;
+    }
+
+    public long getMessagesSent() {
+        return messagesSent;
+    }
+
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    public long getQueueBytes() {
+        return queueBytes;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    // Application-level ping round trip percentiles, -1 until the server has answered a ping.
+    public double getRttP50Ms() {
+        return rttP50Ms;
+    }
+
+    public double getRttP90Ms() {
+        return rttP90Ms;
+    }
+
+    public double getRttP99Ms() {
+        return rttP99Ms;
+    }
+
+    @Override
+    public String toString() {
+        return name + ": " + state + ", " + messagesSent + " msgs, " + bytesSent / 1024 + " KiB, queue "
+                + queueBytes / 1024 + " KiB"
+                + (rttP50Ms >= 0 ? String.format(Locale.US, ", RTT p50/p90/p99 %.0f/%.0f/%.0f ms", rttP50Ms, rttP90Ms, rttP99Ms) : "")
+                + (lastError != null ? ", last error: " + lastError : "");
+    }
+}
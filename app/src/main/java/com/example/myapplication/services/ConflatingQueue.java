@@ -0,0 +1,67 @@
+package com.example.myapplication.services;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+// FIFO of values waiting for a congested socket where an unsent value is replaced by a newer
+// one with the same key, keeping its place in line. In strict mode nothing is replaced and
+// every value is kept. Thread-safe.
+public class ConflatingQueue<T> {
+
+    private static final class Entry<T> {
+        final String key;
+        T value;
+
+        Entry(String key, T value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    private final ArrayDeque<Entry<T>> entries = new ArrayDeque<>();
+    private final Map<String, Entry<T>> latest = new HashMap<>();
+    private boolean strict;
+    private long conflated;
+
+    // Returns true if the value replaced an unsent one.
+    public synchronized boolean offer(String key, T value) {
+        Entry<T> pending = strict ? null : latest.get(key);
+        if (pending != null) {
+            pending.value = value;
+            conflated++;
+            return true;
+        }
+        Entry<T> entry = new Entry<>(key, value);
+        entries.addLast(entry);
+        latest.put(key, entry);
+        return false;
+    }
+
+    public synchronized T poll() {
+        Entry<T> entry = entries.pollFirst();
+        if (entry == null) {
+            return null;
+        }
+        if (latest.get(entry.key) == entry) {
+            latest.remove(entry.key);
+        }
+        return entry.value;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized void setStrict(boolean strict) {
+        this.strict = strict;
+    }
+
+    public synchronized boolean isStrict() {
+        return strict;
+    }
+
+    public synchronized long getConflatedCount() {
+        return conflated;
+    }
+}
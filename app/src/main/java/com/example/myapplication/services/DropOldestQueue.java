@@ -0,0 +1,46 @@
+package com.example.myapplication.services;
+
+import java.util.ArrayDeque;
+
+// Bounded FIFO that never blocks the producer: when full, offer() evicts and returns the
+// oldest element so the caller can recycle it. Thread-safe.
+public class DropOldestQueue<T> {
+    private final ArrayDeque<T> items;
+    private final int capacity;
+    private long dropped;
+
+    public DropOldestQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.items = new ArrayDeque<>(capacity);
+    }
+
+    // Returns the evicted element, or null if there was room.
+    public synchronized T offer(T item) {
+        T evicted = null;
+        if (items.size() == capacity) {
+            evicted = items.pollFirst();
+            dropped++;
+        }
+        items.addLast(item);
+        return evicted;
+    }
+
+    public synchronized T poll() {
+        return items.pollFirst();
+    }
+
+    public synchronized int size() {
+        return items.size();
+    }
+
+    public synchronized long getDroppedCount() {
+        return dropped;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
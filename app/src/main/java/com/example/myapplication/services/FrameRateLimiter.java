@@ -0,0 +1,71 @@
+package com.example.myapplication.services;
+
+// Token bucket deciding per frame whether it may be sent. Tokens accrue at ratePerSecond on
+// the monotonic System.nanoTime() clock, up to burst, so fractional rates (2.5 fps) and short
+// bursts after idle periods are both supported. Thread-safe.
+public class FrameRateLimiter {
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private double ratePerSecond;
+    private int burst;
+    private double tokens = 1;
+    private long lastRefillNanos;
+    private boolean started = false;
+
+    public FrameRateLimiter(double ratePerSecond, int burst) {
+        setRate(ratePerSecond, burst);
+    }
+
+    public synchronized void setRate(double ratePerSecond, int burst) {
+        if (ratePerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate must be positive and burst at least 1");
+        }
+        this.ratePerSecond = ratePerSecond;
+        this.burst = burst;
+        tokens = Math.min(tokens, burst);
+    }
+
+    public synchronized double getRatePerSecond() {
+        return ratePerSecond;
+    }
+
+    public synchronized int getBurst() {
+        return burst;
+    }
+
+    public boolean tryAcquire() {
+        return tryAcquire(System.nanoTime());
+    }
+
+    public synchronized boolean tryAcquire(long nowNanos) {
+        refill(nowNanos);
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    public boolean canAcquire() {
+        return canAcquire(System.nanoTime());
+    }
+
+    // Whether tryAcquire() would succeed now, without taking the token: lets a caller run
+    // cheaper checks that may still discard the frame before spending its budget.
+    public synchronized boolean canAcquire(long nowNanos) {
+        refill(nowNanos);
+        return tokens >= 1;
+    }
+
+    private void refill(long nowNanos) {
+        if (!started) {
+            started = true;
+            lastRefillNanos = nowNanos;
+        }
+        long elapsed = nowNanos - lastRefillNanos;
+        if (elapsed > 0) {
+            tokens = Math.min(burst, tokens + elapsed * ratePerSecond / NANOS_PER_SECOND);
+            lastRefillNanos = nowNanos;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.myapplication.services;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import okio.Buffer;
+import okio.ByteString;
+
+// Fixed-size header that prefixes every binary /ws/image message. Layout (big-endian):
+//   magic u16 | version u8 | codec u8 | sequence u32 | capture time ms i64 |
+//   width u16 | height u16 | rotation u16
+// The encoded image follows immediately after the header.
+public final class ImageFrameHeader {
+    public static final int MAGIC = 0x5046; // "PF"
+    public static final int VERSION = 1;
+    public static final int SIZE = 22;
+
+    public static final int CODEC_JPEG = 1;
+    public static final int CODEC_JPEG_GRAYSCALE = 2; // JPEG whose chroma is constant; only luma is meaningful
+
+    private final int codec;
+    private final int sequence;
+    private final long captureTimeMs;
+    private final int width;
+    private final int height;
+    private final int rotation;
+
+    public ImageFrameHeader(int codec, int sequence, long captureTimeMs, int width, int height, int rotation) {
+        this.codec = codec;
+        this.sequence = sequence;
+        this.captureTimeMs = captureTimeMs;
+        this.width = width;
+        this.height = height;
+        this.rotation = rotation;
+    }
+
+    public int getCodec() {
+        return codec;
+    }
+
+    public int getSequence() {
+        return sequence;
+    }
+
+    public long getCaptureTimeMs() {
+        return captureTimeMs;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getRotation() {
+        return rotation;
+    }
+
+    public void writeTo(byte[] destination, int offset) {
+        ByteBuffer buffer = ByteBuffer.wrap(destination, offset, SIZE).order(ByteOrder.BIG_ENDIAN);
+        buffer.putShort((short) MAGIC);
+        buffer.put((byte) VERSION);
+        buffer.put((byte) codec);
+        buffer.putInt(sequence);
+        buffer.putLong(captureTimeMs);
+        buffer.putShort((short) width);
+        buffer.putShort((short) height);
+        buffer.putShort((short) rotation);
+    }
+
+    // Builds a complete binary message: header followed by payload[0, length).
+    // The payload is copied once into okio segments which the ByteString then shares.
+    public ByteString toFrame(byte[] payload, int length) {
+        byte[] header = new byte[SIZE];
+        writeTo(header, 0);
+        Buffer frame = new Buffer();
+        frame.write(header);
+        frame.write(payload, 0, length);
+        return frame.readByteString();
+    }
+
+    public static ImageFrameHeader decode(ByteString frame) {
+        if (frame.size() < SIZE) {
+            throw new IllegalArgumentException("Frame too short for header: " + frame.size() + " bytes");
+        }
+        return decode(ByteBuffer.wrap(frame.substring(0, SIZE).toByteArray()));
+    }
+
+    public static ImageFrameHeader decode(ByteBuffer buffer) {
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        int magic = buffer.getShort() & 0xFFFF;
+        if (magic != MAGIC) {
+            throw new IllegalArgumentException("Bad frame magic: 0x" + Integer.toHexString(magic));
+        }
+        int version = buffer.get() & 0xFF;
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported frame version: " + version);
+        }
+        int codec = buffer.get() & 0xFF;
+        int sequence = buffer.getInt();
+        long captureTimeMs = buffer.getLong();
+        int width = buffer.getShort() & 0xFFFF;
+        int height = buffer.getShort() & 0xFFFF;
+        int rotation = buffer.getShort() & 0xFFFF;
+        return new ImageFrameHeader(codec, sequence, captureTimeMs, width, height, rotation);
+    }
+
+    // Returns the encoded image carried after the header.
+    public static ByteString payload(ByteString frame) {
+        return frame.substring(SIZE);
+    }
+}
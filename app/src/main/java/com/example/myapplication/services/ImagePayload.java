@@ -0,0 +1,51 @@
+package com.example.myapplication.services;
+
+import okio.ByteString;
+
+// Encoded /ws/image message waiting for the sender stage: either a binary frame or a data-URL text.
+public class ImagePayload {
+    private final ByteString binary;
+    private final String text;
+    private final long captureNanos;
+    private final int[] motionSignature;
+
+    private ImagePayload(ByteString binary, String text, long captureNanos, int[] motionSignature) {
+        this.binary = binary;
+        this.text = text;
+        this.captureNanos = captureNanos;
+        this.motionSignature = motionSignature;
+    }
+
+    public static ImagePayload binary(ByteString frame, long captureNanos, int[] motionSignature) {
+        return new ImagePayload(frame, null, captureNanos, motionSignature);
+    }
+
+    public static ImagePayload text(String message, long captureNanos, int[] motionSignature) {
+        return new ImagePayload(null, message, captureNanos, motionSignature);
+    }
+
+    public boolean isBinary() {
+        return binary != null;
+    }
+
+    public ByteString getBinary() {
+        return binary;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    // Bytes this message adds to the WebSocket send queue.
+    public long size() {
+        return binary != null ? binary.size() : text.length();
+    }
+
+    public long getCaptureNanos() {
+        return captureNanos;
+    }
+
+    public int[] getMotionSignature() {
+        return motionSignature;
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.myapplication.services;
+
+public enum ImageTransportMode {
+    TEXT,   // "data:image/jpeg;base64,..." text messages, understood by older servers
+    BINARY  // ImageFrameHeader followed by the raw encoded image, sent as a binary message
+}
@@ -0,0 +1,133 @@
+package com.example.myapplication.services;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Application-level ping/pong bookkeeping for one channel.
+//
+// The client sends {"type":"ping","id":N,"t0":<client ms>} and the server answers with
+// {"type":"pong","id":N,"t0":..,"t1":<server receive ms>,"t2":<server send ms>}. With t3 the
+// client receive time, RTT = (t3 - t0) - (t2 - t1) and the server clock offset is
+// ((t1 - t0) + (t2 - t3)) / 2, as in NTP. RTT is measured on the monotonic clock; the offset
+// is taken from the lowest-RTT sample of the last few, whose path asymmetry is smallest.
+// Negotiated per socket: the client sends HEADER with VERSION_NAME on the upgrade request and
+// only pings servers that echo it. Thread-safe.
+public class LatencyTracker {
+    public static final String HEADER = "X-Latency-Probe";
+    public static final String VERSION_NAME = "ping-1";
+
+    private static final int MAX_RTT_SAMPLES = 64;
+    private static final int OFFSET_WINDOW = 8;
+    private static final int MAX_PENDING = 8;
+
+    private final long[] rttNanos = new long[MAX_RTT_SAMPLES];
+    private int rttCount;
+    private int nextRtt;
+    private final long[] offsetSamplesMs = new long[OFFSET_WINDOW];
+    private final long[] offsetRttNanos = new long[OFFSET_WINDOW];
+    private int offsetCount;
+    private int nextOffset;
+    private final Map<Integer, long[]> pending = new LinkedHashMap<>(); // id -> {sent nanos, t0}
+    private int nextId = 1;
+    private long pongs;
+    private long lostPings;
+
+    public synchronized String createPing(long nowMs, long nowNanos) {
+        int id = nextId++;
+        pending.put(id, new long[]{nowNanos, nowMs});
+        if (pending.size() > MAX_PENDING) {
+            Iterator<Integer> oldest = pending.keySet().iterator();
+            oldest.next();
+            oldest.remove();
+            lostPings++;
+        }
+        return "{\"type\":\"ping\",\"id\":" + id + ",\"t0\":" + nowMs + "}";
+    }
+
+    // Returns false for a pong that does not match an outstanding ping.
+    public synchronized boolean onPong(int id, long serverReceiveMs, long serverSendMs, long nowMs, long nowNanos) {
+        long[] ping = pending.remove(id);
+        if (ping == null) {
+            return false;
+        }
+        // Pings sent before this one and still unanswered are treated as lost
+        Iterator<Map.Entry<Integer, long[]>> older = pending.entrySet().iterator();
+        while (older.hasNext() && older.next().getKey() < id) {
+            older.remove();
+            lostPings++;
+        }
+
+        long serverProcessingNanos = Math.max(0, serverSendMs - serverReceiveMs) * 1_000_000L;
+        long rtt = Math.max(0, nowNanos - ping[0] - serverProcessingNanos);
+        rttNanos[nextRtt] = rtt;
+        nextRtt = (nextRtt + 1) % MAX_RTT_SAMPLES;
+        rttCount = Math.min(rttCount + 1, MAX_RTT_SAMPLES);
+
+        long sentMs = ping[1];
+        offsetSamplesMs[nextOffset] = ((serverReceiveMs - sentMs) + (serverSendMs - nowMs)) / 2;
+        offsetRttNanos[nextOffset] = rtt;
+        nextOffset = (nextOffset + 1) % OFFSET_WINDOW;
+        offsetCount = Math.min(offsetCount + 1, OFFSET_WINDOW);
+        pongs++;
+        return true;
+    }
+
+    // A ping has gone unanswered for longer than timeoutNanos although the server does answer
+    // pings; the connection is probably half-open.
+    public synchronized boolean hasTimedOut(long nowNanos, long timeoutNanos) {
+        if (pongs == 0 || pending.isEmpty()) {
+            return false;
+        }
+        return nowNanos - pending.values().iterator().next()[0] > timeoutNanos;
+    }
+
+    // Forgets outstanding pings, e.g. when the socket is replaced. Samples are kept.
+    public synchronized void clearPending() {
+        pending.clear();
+    }
+
+    // RTT percentile in milliseconds over the recent samples, or -1 without samples.
+    public synchronized double getRttPercentileMs(double percentile) {
+        if (rttCount == 0) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(rttNanos, rttCount);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * rttCount) - 1;
+        return sorted[Math.max(0, Math.min(rttCount - 1, index))] / 1_000_000.0;
+    }
+
+    public synchronized boolean isOffsetKnown() {
+        return offsetCount > 0;
+    }
+
+    // Server clock minus client clock, in milliseconds; 0 until the first pong.
+    public synchronized long getClockOffsetMs() {
+        return offsetCount == 0 ? 0 : offsetSamplesMs[bestOffsetIndex()];
+    }
+
+    // RTT of the sample the offset comes from; the offset's error is at most half of it.
+    public synchronized double getOffsetRttMs() {
+        return offsetCount == 0 ? -1 : offsetRttNanos[bestOffsetIndex()] / 1_000_000.0;
+    }
+
+    private int bestOffsetIndex() {
+        int best = 0;
+        for (int i = 1; i < offsetCount; i++) {
+            if (offsetRttNanos[i] < offsetRttNanos[best]) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    public synchronized long getPongCount() {
+        return pongs;
+    }
+
+    public synchronized long getLostPingCount() {
+        return lostPings;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.myapplication.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Accumulates JSON samples into one batch message:
+// {"type":"batch","count":N,"samples":[{"timestamp":<ms>,"data":<sample>},...]}
+// A batch is returned once it reaches maxSamples or would grow past maxBytes; the caller is
+// responsible for calling flush() when the time window expires. Delta-encoded samples also keep
+// their full JSON, so a batch that cannot be sent is spooled in a form that decodes on its own
+// and its delta frames are committed only after a successful send. Thread-safe.
+public class MessageBatcher {
+    private static final String PREFIX = "{\"type\":\"batch\",\"count\":";
+
+    public static final class Batch {
+        public final String text;
+        public final String fullText; // The same samples without delta encoding
+        public final List<CellDeltaEncoder.Frame> deltas;
+
+        Batch(String text, String fullText, List<CellDeltaEncoder.Frame> deltas) {
+            this.text = text;
+            this.fullText = fullText;
+            this.deltas = deltas;
+        }
+    }
+
+    private final int maxSamples;
+    private final int maxBytes;
+    private final StringBuilder samples = new StringBuilder();
+    private final StringBuilder fullSamples = new StringBuilder();
+    private List<CellDeltaEncoder.Frame> deltas = new ArrayList<>();
+    private int sampleCount;
+    private long batchesFlushed;
+    private long samplesBatched;
+
+    public MessageBatcher(int maxSamples, int maxBytes) {
+        if (maxSamples < 1 || maxBytes < 1) {
+            throw new IllegalArgumentException("Batch limits must be positive");
+        }
+        this.maxSamples = maxSamples;
+        this.maxBytes = maxBytes;
+    }
+
+    // Adds one sample and returns a batch ready to send, or null. If the sample would push the
+    // pending batch past maxBytes, the pending batch is returned and the sample starts a new one.
+    public synchronized String add(String json, long timestampMs) {
+        Batch ready = add(json, null, timestampMs);
+        return ready != null ? ready.text : null;
+    }
+
+    // Like add(String, long); a non-null delta is sent in place of json.
+    public synchronized Batch add(String json, CellDeltaEncoder.Frame delta, long timestampMs) {
+        String entry = entry(delta != null ? delta.getText() : json, timestampMs);
+        Batch ready = null;
+        if (sampleCount > 0 && samples.length() + entry.length() + 1 > maxBytes) {
+            ready = flushBatch();
+        }
+        if (sampleCount > 0) {
+            samples.append(',');
+            fullSamples.append(',');
+        }
+        samples.append(entry);
+        fullSamples.append(delta != null ? entry(json, timestampMs) : entry);
+        if (delta != null) {
+            deltas.add(delta);
+        }
+        sampleCount++;
+        if (ready == null && (sampleCount >= maxSamples || samples.length() >= maxBytes)) {
+            ready = flushBatch();
+        }
+        return ready;
+    }
+
+    private static String entry(String json, long timestampMs) {
+        return "{\"timestamp\":" + timestampMs + ",\"data\":" + json + "}";
+    }
+
+    // Returns the pending batch, or null if there is none.
+    public synchronized String flush() {
+        Batch batch = flushBatch();
+        return batch != null ? batch.text : null;
+    }
+
+    public synchronized Batch flushBatch() {
+        if (sampleCount == 0) {
+            return null;
+        }
+        String prefix = PREFIX + sampleCount + ",\"samples\":[";
+        Batch batch = new Batch(prefix + samples + "]}", prefix + fullSamples + "]}",
+                deltas.isEmpty() ? Collections.<CellDeltaEncoder.Frame>emptyList() : deltas);
+        batchesFlushed++;
+        samplesBatched += sampleCount;
+        samples.setLength(0);
+        fullSamples.setLength(0);
+        if (!deltas.isEmpty()) {
+            deltas = new ArrayList<>();
+        }
+        sampleCount = 0;
+        return batch;
+    }
+
+    public synchronized int getPendingCount() {
+        return sampleCount;
+    }
+
+    public synchronized long getBatchesFlushed() {
+        return batchesFlushed;
+    }
+
+    public synchronized long getSamplesBatched() {
+        return samplesBatched;
+    }
+}
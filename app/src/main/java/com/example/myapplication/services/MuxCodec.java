@@ -0,0 +1,70 @@
+package com.example.myapplication.services;
+
+import java.nio.charset.StandardCharsets;
+import okio.Buffer;
+import okio.ByteString;
+
+// Framing for the multiplexed /ws/mux socket. Every message is a binary WebSocket frame whose
+// first byte is a channel tag: the low 7 bits name the logical channel and the high bit says
+// whether the rest is an opaque binary payload (set) or UTF-8 text (clear).
+public final class MuxCodec {
+    public static final int CHANNEL_PRIMARY = 1;   // Replaces /ws/data1
+    public static final int CHANNEL_NEIGHBORS = 2; // Replaces /ws/data2
+    public static final int CHANNEL_IMAGE = 3;     // Replaces /ws/image
+    public static final int CHANNEL_CONTROL = 4;   // Pings and other per-connection control messages
+
+    private static final int FLAG_BINARY = 0x80;
+    private static final int CHANNEL_MASK = 0x7F;
+
+    private MuxCodec() {
+    }
+
+    public static ByteString encodeText(int channel, String text) {
+        Buffer frame = new Buffer();
+        frame.writeByte(tag(channel, false));
+        frame.writeUtf8(text);
+        return frame.readByteString();
+    }
+
+    public static ByteString encodeBinary(int channel, ByteString payload) {
+        Buffer frame = new Buffer();
+        frame.writeByte(tag(channel, true));
+        frame.write(payload);
+        return frame.readByteString();
+    }
+
+    public static int channel(ByteString frame) {
+        requireTag(frame);
+        return frame.getByte(0) & CHANNEL_MASK;
+    }
+
+    public static boolean isBinary(ByteString frame) {
+        requireTag(frame);
+        return (frame.getByte(0) & FLAG_BINARY) != 0;
+    }
+
+    public static ByteString payload(ByteString frame) {
+        requireTag(frame);
+        return frame.substring(1);
+    }
+
+    public static String text(ByteString frame) {
+        if (isBinary(frame)) {
+            throw new IllegalArgumentException("Channel " + channel(frame) + " frame carries binary data");
+        }
+        return frame.substring(1).string(StandardCharsets.UTF_8);
+    }
+
+    private static int tag(int channel, boolean binary) {
+        if (channel <= 0 || channel > CHANNEL_MASK) {
+            throw new IllegalArgumentException("Invalid channel: " + channel);
+        }
+        return binary ? channel | FLAG_BINARY : channel;
+    }
+
+    private static void requireTag(ByteString frame) {
+        if (frame.size() < 1) {
+            throw new IllegalArgumentException("Empty multiplexed frame");
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.myapplication.services;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+// One stage of the camera frame pipeline: a bounded drop-oldest input queue drained by a
+// dedicated single thread. Items evicted by a full queue, or left over at shutdown, are
+// handed to the drop listener so pooled buffers can be returned.
+public class PipelineStage<T> {
+
+    public interface Processor<T> {
+        void process(T item);
+    }
+
+    public interface DropListener<T> {
+        void onDropped(T item);
+    }
+
+    private final DropOldestQueue<T> queue;
+    private final Processor<T> processor;
+    private final DropListener<T> dropListener;
+    private final ExecutorService executor;
+    private final StageStats stats;
+
+    public PipelineStage(String name, int capacity, Processor<T> processor, DropListener<T> dropListener) {
+        this.queue = new DropOldestQueue<>(capacity);
+        this.processor = processor;
+        this.dropListener = dropListener;
+        this.stats = new StageStats(name);
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "frame-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void offer(T item) {
+        T evicted = queue.offer(item);
+        stats.setQueueDepth(queue.size());
+        if (evicted != null) {
+            stats.setDropped(queue.getDroppedCount());
+            dropListener.onDropped(evicted);
+        }
+        try {
+            executor.execute(this::drainOne);
+        } catch (RejectedExecutionException e) {
+            drainDropped();
+        }
+    }
+
+    // Each offer schedules one drain; drains that find the queue empty (because their item
+    // was evicted) return immediately.
+    private void drainOne() {
+        T item = queue.poll();
+        stats.setQueueDepth(queue.size());
+        if (item == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        processor.process(item);
+        stats.recordLatency(System.nanoTime() - start);
+    }
+
+    private void drainDropped() {
+        T item;
+        while ((item = queue.poll()) != null) {
+            dropListener.onDropped(item);
+        }
+        stats.setQueueDepth(0);
+    }
+
+    public StageStats getStats() {
+        return stats;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+        drainDropped();
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.myapplication.services;
+
+import java.util.Random;
+
+// Reconnect schedule for one endpoint: exponential backoff with full jitter (a uniformly random
+// delay between 0 and the capped exponential bound), so many devices dropped at once do not
+// reconnect in lockstep. After too many consecutive failures the circuit opens and attempts
+// pause for a cool-down; the next attempt is a single half-open probe. Also tracks attempts
+// and downtime. Thread-safe.
+public class ReconnectPolicy {
+
+    public enum CircuitState {
+        CLOSED,    // Normal backoff
+        OPEN,      // Cooling down after repeated failures
+        HALF_OPEN  // Probing once after the cool-down
+    }
+
+    public static final long DEFAULT_BASE_DELAY_MS = 1000;
+    public static final long DEFAULT_MAX_DELAY_MS = 60_000;
+    public static final int DEFAULT_FAILURE_THRESHOLD = 8;
+    public static final long DEFAULT_OPEN_DURATION_MS = 120_000;
+
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final int failureThreshold;
+    private final long openDurationMs;
+    private final Random random;
+
+    private CircuitState state = CircuitState.CLOSED;
+    private int consecutiveFailures;
+    private long attempts;
+    private long disconnectedSinceMs = -1;
+    private long totalDowntimeMs;
+
+    public ReconnectPolicy() {
+        this(DEFAULT_BASE_DELAY_MS, DEFAULT_MAX_DELAY_MS, DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_DURATION_MS, new Random());
+    }
+
+    public ReconnectPolicy(long baseDelayMs, long maxDelayMs, int failureThreshold, long openDurationMs, Random random) {
+        if (baseDelayMs <= 0 || maxDelayMs < baseDelayMs || failureThreshold < 1 || openDurationMs < 0) {
+            throw new IllegalArgumentException("Invalid reconnect policy");
+        }
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.failureThreshold = failureThreshold;
+        this.openDurationMs = openDurationMs;
+        this.random = random;
+    }
+
+    // Records a failed or dropped connection and returns the delay before the next attempt.
+    public synchronized long onFailure(long nowMs) {
+        if (disconnectedSinceMs < 0) {
+            disconnectedSinceMs = nowMs;
+        }
+        consecutiveFailures++;
+        if (state == CircuitState.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = CircuitState.OPEN;
+            return openDurationMs + (long) (random.nextDouble() * baseDelayMs);
+        }
+        int exponent = Math.min(consecutiveFailures - 1, 30);
+        long bound = Math.min(maxDelayMs, baseDelayMs << exponent);
+        return (long) (random.nextDouble() * bound);
+    }
+
+    public synchronized void onAttempt() {
+        attempts++;
+        if (state == CircuitState.OPEN) {
+            state = CircuitState.HALF_OPEN;
+        }
+    }
+
+    public synchronized void onConnected(long nowMs) {
+        if (disconnectedSinceMs >= 0) {
+            totalDowntimeMs += nowMs - disconnectedSinceMs;
+            disconnectedSinceMs = -1;
+        }
+        consecutiveFailures = 0;
+        state = CircuitState.CLOSED;
+    }
+
+    // Forget the failure streak without counting downtime, e.g. when the user disconnects.
+    public synchronized void reset() {
+        disconnectedSinceMs = -1;
+        consecutiveFailures = 0;
+        state = CircuitState.CLOSED;
+    }
+
+    public synchronized CircuitState getState() {
+        return state;
+    }
+
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    public synchronized long getAttempts() {
+        return attempts;
+    }
+
+    // Completed outages plus the current one, if any.
+    public synchronized long getDowntimeMs(long nowMs) {
+        return totalDowntimeMs + (disconnectedSinceMs >= 0 ? nowMs - disconnectedSinceMs : 0);
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.myapplication.services;
+
+import com.example.myapplication.metrics.Counter;
+import com.example.myapplication.metrics.LatencyHistogram;
+import com.example.myapplication.metrics.MetricsRegistry;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Admission control for the uplink. Cell messages on data1/data2 have strict priority: an
+// image frame is only admitted while no cell bytes are waiting, otherwise it is deferred and
+// finally dropped if it waited longer than maxImageDeferNanos. Each logical channel may also
+// have a bytes-per-second budget, enforced with a token bucket holding one second's worth;
+// a message bigger than the bucket is let through when the bucket is full and leaves it in
+// debt. Decisions are counted in the metrics registry. Thread-safe.
+public class SendScheduler {
+    public enum Decision { SEND, DEFER, DROP }
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private static final class ByteBudget {
+        final long bytesPerSecond;
+        double tokens;
+        long lastRefillNanos;
+
+        ByteBudget(long bytesPerSecond, long nowNanos) {
+            this.bytesPerSecond = bytesPerSecond;
+            this.tokens = bytesPerSecond;
+            this.lastRefillNanos = nowNanos;
+        }
+
+        synchronized boolean tryTake(long bytes, long nowNanos) {
+            long elapsed = nowNanos - lastRefillNanos;
+            if (elapsed > 0) {
+                tokens = Math.min(bytesPerSecond, tokens + (double) elapsed * bytesPerSecond / NANOS_PER_SECOND);
+                lastRefillNanos = nowNanos;
+            }
+            if (tokens < Math.min(bytes, bytesPerSecond)) {
+                return false;
+            }
+            tokens -= bytes;
+            return true;
+        }
+    }
+
+    private final long maxImageDeferNanos;
+    private final Map<String, ByteBudget> budgets = new ConcurrentHashMap<>();
+    private final Counter cellSent;
+    private final Counter cellOverBudget;
+    private final Counter imageSent;
+    private final Counter imageDeferred;
+    private final Counter imageDroppedForCells;
+    private final Counter imageDroppedOverBudget;
+    private final LatencyHistogram imageDeferLatency;
+
+    public SendScheduler(MetricsRegistry metrics, long maxImageDeferNanos) {
+        this.maxImageDeferNanos = maxImageDeferNanos;
+        cellSent = metrics.counter("scheduler.cell.sent");
+        cellOverBudget = metrics.counter("scheduler.cell.over_budget");
+        imageSent = metrics.counter("scheduler.image.sent");
+        imageDeferred = metrics.counter("scheduler.image.deferred");
+        imageDroppedForCells = metrics.counter("scheduler.image.dropped_for_cells");
+        imageDroppedOverBudget = metrics.counter("scheduler.image.dropped_over_budget");
+        imageDeferLatency = metrics.histogram("scheduler.image.defer");
+    }
+
+    // 0 removes the budget.
+    public void setBudget(String channel, long bytesPerSecond) {
+        if (bytesPerSecond < 0) {
+            throw new IllegalArgumentException("Budget must not be negative");
+        }
+        if (bytesPerSecond == 0) {
+            budgets.remove(channel);
+        } else {
+            budgets.put(channel, new ByteBudget(bytesPerSecond, System.nanoTime()));
+        }
+    }
+
+    // Bytes per second, or 0 when unlimited.
+    public long getBudget(String channel) {
+        ByteBudget budget = budgets.get(channel);
+        return budget != null ? budget.bytesPerSecond : 0;
+    }
+
+    // Cell messages are never held back for images, only by their own channel's budget.
+    public boolean admitCell(String channel, long bytes, long nowNanos) {
+        if (!withinBudget(channel, bytes, nowNanos)) {
+            cellOverBudget.increment();
+            return false;
+        }
+        return true;
+    }
+
+    // An admitted cell message was accepted by its socket.
+    public void onCellSent() {
+        cellSent.increment();
+    }
+
+    // cellBacklogBytes is what the cell messages already handed to the sockets still have
+    // queued; firstAttemptNanos is when this frame was first offered.
+    public Decision admitImage(String channel, long bytes, long cellBacklogBytes, long firstAttemptNanos, long nowNanos) {
+        boolean expired = nowNanos - firstAttemptNanos >= maxImageDeferNanos;
+        if (cellBacklogBytes > 0) {
+            if (expired) {
+                imageDroppedForCells.increment();
+                return Decision.DROP;
+            }
+            return Decision.DEFER;
+        }
+        if (!withinBudget(channel, bytes, nowNanos)) {
+            if (expired) {
+                imageDroppedOverBudget.increment();
+                return Decision.DROP;
+            }
+            return Decision.DEFER;
+        }
+        if (nowNanos > firstAttemptNanos) {
+            imageDeferred.increment();
+            imageDeferLatency.record(nowNanos - firstAttemptNanos);
+        }
+        imageSent.increment();
+        return Decision.SEND;
+    }
+
+    private boolean withinBudget(String channel, long bytes, long nowNanos) {
+        ByteBudget budget = budgets.get(channel);
+        return budget == null || budget.tryTake(bytes, nowNanos);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.myapplication.services;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Processing counters for one frame pipeline stage. Latencies are in microseconds.
+public class StageStats {
+    private final String name;
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong totalLatencyMicros = new AtomicLong();
+    private volatile long lastLatencyMicros;
+    private volatile long maxLatencyMicros;
+    private volatile int queueDepth;
+    private volatile long dropped;
+
+    public StageStats(String name) {
+        this.name = name;
+    }
+
+    public void recordLatency(long latencyNanos) {
+        long micros = latencyNanos / 1000;
+        lastLatencyMicros = micros;
+        if (micros > maxLatencyMicros) {
+            maxLatencyMicros = micros;
+        }
+        totalLatencyMicros.addAndGet(micros);
+        processed.incrementAndGet();
+    }
+
+    void setQueueDepth(int queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    void setDropped(long dropped) {
+        this.dropped = dropped;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getProcessed() {
+        return processed.get();
+    }
+
+    public long getLastLatencyMicros() {
+        return lastLatencyMicros;
+    }
+
+    public long getMaxLatencyMicros() {
+        return maxLatencyMicros;
+    }
+
+    public long getAverageLatencyMicros() {
+        long count = processed.get();
+        return count == 0 ? 0 : totalLatencyMicros.get() / count;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    @Override
+    public String toString() {
+        return name + ": depth " + queueDepth + ", processed " + getProcessed() + ", dropped " + dropped
+                + ", latency avg " + getAverageLatencyMicros() + " us, max " + maxLatencyMicros + " us";
+    }
+}
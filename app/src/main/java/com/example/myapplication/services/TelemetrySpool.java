@@ -0,0 +1,286 @@
+package com.example.myapplication.services;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntPredicate;
+import java.util.zip.CRC32;
+
+// Size-capped FIFO of outgoing cell messages kept in a memory-mapped file, so samples taken
+// while the socket is down survive process death and can be replayed in order later.
+//
+// Layout: a fixed header followed by a circular data region. Head and tail are logical byte
+// offsets that only grow; the physical offset is the logical one modulo the data capacity.
+// Each record is [int length][byte channel][int crc32][payload] and may wrap around the end.
+// Records are removed by the position peek() returned them at: a removed record gets the
+// REMOVED bit in its channel byte (outside the checksum) until head moves past it, so removing
+// out of order or after an eviction never touches records that were not sent.
+//
+// Writes are crash-safe: the record bytes go in first, then the new head/tail are committed to
+// one of two checksummed header slots, alternating by generation. A crash before the commit
+// leaves the previous slot intact, so a half-written record is never visible after reopening.
+public class TelemetrySpool {
+    private static final int MAGIC = 0x54535031; // "TSP1"
+    private static final int VERSION = 1;
+    private static final int SLOT_SIZE = 32; // long generation, long head, long tail, int count, int crc
+    private static final int SLOT_OFFSET = 16;
+    static final int DATA_OFFSET = SLOT_OFFSET + 2 * SLOT_SIZE;
+    static final int RECORD_HEADER_SIZE = 9;
+    private static final int REMOVED = 0x80;
+
+    public static final class Message {
+        public final int channel;
+        public final String text;
+        final long position; // Logical offset of the record; offsets are never reused
+
+        Message(int channel, String text, long position) {
+            this.channel = channel;
+            this.text = text;
+            this.position = position;
+        }
+    }
+
+    private final RandomAccessFile file;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final CRC32 crc = new CRC32();
+    private final byte[] recordHeader = new byte[RECORD_HEADER_SIZE];
+    private long generation;
+    private long head;
+    private long tail;
+    private int count;
+    private long droppedCount;
+
+    // Opens or creates the spool. An existing file with a different capacity or an unreadable
+    // header is discarded rather than trusted.
+    public TelemetrySpool(File path, int capacityBytes) throws IOException {
+        if (capacityBytes <= RECORD_HEADER_SIZE) {
+            throw new IllegalArgumentException("Capacity too small: " + capacityBytes);
+        }
+        capacity = capacityBytes;
+        file = new RandomAccessFile(path, "rw");
+        boolean existing = file.length() == DATA_OFFSET + (long) capacityBytes;
+        file.setLength(DATA_OFFSET + (long) capacityBytes);
+        buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, DATA_OFFSET + (long) capacityBytes);
+
+        if (!existing || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+                || buffer.getInt(8) != capacityBytes || !loadNewestSlot()) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, capacityBytes);
+            generation = 0;
+            head = 0;
+            tail = 0;
+            count = 0;
+            writeSlot();
+        }
+    }
+
+    private boolean loadNewestSlot() {
+        long bestGeneration = -1;
+        for (int slot = 0; slot < 2; slot++) {
+            int offset = SLOT_OFFSET + slot * SLOT_SIZE;
+            long slotGeneration = buffer.getLong(offset);
+            long slotHead = buffer.getLong(offset + 8);
+            long slotTail = buffer.getLong(offset + 16);
+            int slotCount = buffer.getInt(offset + 24);
+            if (buffer.getInt(offset + 28) != slotChecksum(slotGeneration, slotHead, slotTail, slotCount)
+                    || slotGeneration <= bestGeneration || slotHead < 0 || slotTail < slotHead
+                    || slotTail - slotHead > capacity || slotCount < 0) {
+                continue;
+            }
+            bestGeneration = slotGeneration;
+            generation = slotGeneration;
+            head = slotHead;
+            tail = slotTail;
+            count = slotCount;
+        }
+        return bestGeneration >= 0;
+    }
+
+    private void commit() {
+        generation++;
+        writeSlot();
+    }
+
+    private void writeSlot() {
+        int offset = SLOT_OFFSET + (int) (generation % 2) * SLOT_SIZE;
+        buffer.putLong(offset, generation);
+        buffer.putLong(offset + 8, head);
+        buffer.putLong(offset + 16, tail);
+        buffer.putInt(offset + 24, count);
+        buffer.putInt(offset + 28, slotChecksum(generation, head, tail, count));
+    }
+
+    private int slotChecksum(long slotGeneration, long slotHead, long slotTail, int slotCount) {
+        ByteBuffer slot = ByteBuffer.allocate(28);
+        slot.putLong(slotGeneration).putLong(slotHead).putLong(slotTail).putInt(slotCount);
+        crc.reset();
+        crc.update(slot.array(), 0, slot.capacity());
+        return (int) crc.getValue();
+    }
+
+    // Appends one message, evicting the oldest ones if the spool is full. Returns false only
+    // if the message alone is larger than the whole spool.
+    public synchronized boolean append(int channel, String text) {
+        byte[] payload = text.getBytes(StandardCharsets.UTF_8);
+        int recordSize = RECORD_HEADER_SIZE + payload.length;
+        if (recordSize > capacity) {
+            return false;
+        }
+        if (capacity - (tail - head) < recordSize) {
+            while (capacity - (tail - head) < recordSize) {
+                if (!isRemoved(head)) {
+                    count--;
+                    droppedCount++;
+                }
+                head += readRecordSize(head);
+            }
+            commit(); // Forget the evicted records before their bytes are overwritten
+        }
+
+        crc.reset();
+        crc.update(channel);
+        crc.update(payload, 0, payload.length);
+        ByteBuffer.wrap(recordHeader).putInt(payload.length).put((byte) channel).putInt((int) crc.getValue());
+        write(tail, recordHeader, RECORD_HEADER_SIZE);
+        write(tail + RECORD_HEADER_SIZE, payload, payload.length);
+
+        tail += recordSize;
+        count++;
+        commit();
+        return true;
+    }
+
+    // Returns up to maxMessages of the oldest messages without removing them. A record that
+    // fails its checksum ends the readable log: it and everything after it are discarded.
+    public synchronized List<Message> peek(int maxMessages) {
+        return peek(maxMessages, channel -> true);
+    }
+
+    // Like peek(int), but only returns messages whose channel passes the filter; the others are
+    // skipped, not removed.
+    public synchronized List<Message> peek(int maxMessages, IntPredicate channelFilter) {
+        List<Message> messages = new ArrayList<>(Math.min(maxMessages, count));
+        long position = head;
+        int live = 0;
+        while (messages.size() < maxMessages && position < tail) {
+            read(position, recordHeader, RECORD_HEADER_SIZE);
+            ByteBuffer header = ByteBuffer.wrap(recordHeader);
+            int length = header.getInt();
+            int flags = header.get() & 0xFF;
+            int channel = flags & ~REMOVED;
+            int expectedCrc = header.getInt();
+            if (length < 0 || position + RECORD_HEADER_SIZE + length > tail) {
+                truncateAt(position, live);
+                break;
+            }
+            byte[] payload = new byte[length];
+            read(position + RECORD_HEADER_SIZE, payload, length);
+            crc.reset();
+            crc.update(channel);
+            crc.update(payload, 0, length);
+            if ((int) crc.getValue() != expectedCrc) {
+                truncateAt(position, live);
+                break;
+            }
+            if ((flags & REMOVED) == 0) {
+                live++;
+                if (channelFilter.test(channel)) {
+                    messages.add(new Message(channel, new String(payload, StandardCharsets.UTF_8), position));
+                }
+            }
+            position += RECORD_HEADER_SIZE + length;
+        }
+        return messages;
+    }
+
+    // Removes messages returned by peek(), normally after a successful send. Messages evicted or
+    // removed in the meantime are ignored.
+    public synchronized void remove(List<Message> messages) {
+        for (Message message : messages) {
+            if (message.position < head || message.position >= tail || isRemoved(message.position)) {
+                continue;
+            }
+            int physical = (int) ((message.position + 4) % capacity);
+            buffer.put(DATA_OFFSET + physical, (byte) (message.channel | REMOVED));
+            count--;
+        }
+        while (head < tail && isRemoved(head)) {
+            head += readRecordSize(head);
+        }
+        commit();
+    }
+
+    // validMessages counts the live records before position.
+    private void truncateAt(long position, int validMessages) {
+        droppedCount += count - validMessages;
+        tail = position;
+        count = validMessages;
+        commit();
+    }
+
+    private boolean isRemoved(long position) {
+        return (buffer.get(DATA_OFFSET + (int) ((position + 4) % capacity)) & REMOVED) != 0;
+    }
+
+    private int readRecordSize(long position) {
+        read(position, recordHeader, 4);
+        return RECORD_HEADER_SIZE + ByteBuffer.wrap(recordHeader).getInt();
+    }
+
+    private void write(long position, byte[] source, int length) {
+        int offset = 0;
+        while (offset < length) {
+            int physical = (int) ((position + offset) % capacity);
+            int chunk = Math.min(length - offset, capacity - physical);
+            buffer.position(DATA_OFFSET + physical);
+            buffer.put(source, offset, chunk);
+            offset += chunk;
+        }
+    }
+
+    private void read(long position, byte[] target, int length) {
+        int offset = 0;
+        while (offset < length) {
+            int physical = (int) ((position + offset) % capacity);
+            int chunk = Math.min(length - offset, capacity - physical);
+            buffer.position(DATA_OFFSET + physical);
+            buffer.get(target, offset, chunk);
+            offset += chunk;
+        }
+    }
+
+    public synchronized int getPendingCount() {
+        return count;
+    }
+
+    public synchronized long getUsedBytes() {
+        return tail - head;
+    }
+
+    public int getCapacityBytes() {
+        return capacity;
+    }
+
+    // Messages evicted because the spool was full or failed their checksum.
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    // Flushes to the storage device. Not needed to survive process death, only power loss.
+    public synchronized void sync() {
+        buffer.force();
+    }
+
+    public synchronized void close() throws IOException {
+        buffer.force();
+        file.close();
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.myapplication.services;
+
+import com.example.myapplication.cell.CellBinaryEncoder;
+import com.example.myapplication.metrics.LatencyHistogram;
+import com.example.myapplication.metrics.MetricsRegistry;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import okhttp3.WebSocket;
+import okio.ByteString;
+import okio.Utf8;
+
+// One logical WebSocket endpoint. The socket and its state live together in a single atomic
+// reference, so senders never see an OPEN state paired with a stale socket, and callbacks
+// from superseded sockets are rejected by identity. Lock-free and thread-safe.
+public class TransportChannel {
+
+    private static final class Connection {
+        final WebSocket socket;
+        final ChannelState state;
+
+        Connection(WebSocket socket, ChannelState state) {
+            this.socket = socket;
+            this.state = state;
+        }
+    }
+
+    private static final Connection IDLE = new Connection(null, ChannelState.IDLE);
+
+    private final String name;
+    private final String path;
+    private final ReconnectPolicy reconnectPolicy = new ReconnectPolicy();
+    private final AtomicReference<Connection> connection = new AtomicReference<>(IDLE);
+    private final AtomicLong messagesSent = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private volatile String lastError;
+    private volatile boolean compressed; // Negotiated per socket in onOpen
+    private volatile CellBinaryEncoder cellEncoder; // Null unless the socket negotiated the binary cell format
+    private volatile boolean heartbeats; // Negotiated per socket in onOpen
+    private final LatencyTracker latencyTracker = new LatencyTracker();
+    private final LatencyHistogram sendLatency; // Time to hand a message to OkHttp's queue
+
+    public TransportChannel(String name, String path) {
+        this.name = name;
+        this.path = path;
+        sendLatency = MetricsRegistry.getInstance().histogram("send." + name);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public ReconnectPolicy getReconnectPolicy() {
+        return reconnectPolicy;
+    }
+
+    public LatencyTracker getLatencyTracker() {
+        return latencyTracker;
+    }
+
+    public ChannelState getState() {
+        return connection.get().state;
+    }
+
+    // True while a socket exists, i.e. connecting, open or closing.
+    public boolean isActive() {
+        return connection.get().socket != null;
+    }
+
+    public boolean isOpen() {
+        return connection.get().state == ChannelState.OPEN;
+    }
+
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    void setCompressed(boolean compressed) {
+        this.compressed = compressed;
+    }
+
+    public boolean isHeartbeatEnabled() {
+        return heartbeats;
+    }
+
+    void setHeartbeatEnabled(boolean heartbeats) {
+        this.heartbeats = heartbeats;
+    }
+
+    public CellBinaryEncoder getCellEncoder() {
+        return cellEncoder;
+    }
+
+    void setCellEncoder(CellBinaryEncoder cellEncoder) {
+        this.cellEncoder = cellEncoder;
+    }
+
+    // Registers a new attempt and returns the socket it replaces, if any.
+    WebSocket beginAttempt(WebSocket socket) {
+        return connection.getAndSet(new Connection(socket, ChannelState.CONNECTING)).socket;
+    }
+
+    boolean markOpen(WebSocket socket) {
+        return transition(socket, ChannelState.CONNECTING, new Connection(socket, ChannelState.OPEN));
+    }
+
+    boolean markClosing(WebSocket socket) {
+        return transition(socket, null, new Connection(socket, ChannelState.CLOSING));
+    }
+
+    boolean markFailed(WebSocket socket, String error) {
+        if (!transition(socket, null, new Connection(null, ChannelState.FAILED))) {
+            return false;
+        }
+        lastError = error;
+        return true;
+    }
+
+    boolean markClosed(WebSocket socket) {
+        return transition(socket, null, IDLE);
+    }
+
+    // Forgets the current socket: open sockets are closed gracefully, pending attempts cancelled.
+    void detach(int code, String reason) {
+        Connection previous = connection.getAndSet(IDLE);
+        if (previous.socket == null) {
+            return;
+        }
+        if (previous.state == ChannelState.CONNECTING) {
+            previous.socket.cancel();
+        } else {
+            previous.socket.close(code, reason);
+        }
+    }
+
+    private boolean transition(WebSocket socket, ChannelState expectedState, Connection next) {
+        while (true) {
+            Connection current = connection.get();
+            if (current.socket != socket || (expectedState != null && current.state != expectedState)) {
+                return false;
+            }
+            if (connection.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    // Returns the socket only if the channel is open.
+    public WebSocket openSocket() {
+        Connection current = connection.get();
+        return current.state == ChannelState.OPEN ? current.socket : null;
+    }
+
+    public boolean send(String text) {
+        WebSocket socket = openSocket();
+        long start = System.nanoTime();
+        if (socket == null || !socket.send(text)) {
+            return false;
+        }
+        sendLatency.recordSince(start);
+        recordSent(Utf8.size(text));
+        return true;
+    }
+
+    public boolean send(ByteString bytes) {
+        WebSocket socket = openSocket();
+        long start = System.nanoTime();
+        if (socket == null || !socket.send(bytes)) {
+            return false;
+        }
+        sendLatency.recordSince(start);
+        recordSent(bytes.size());
+        return true;
+    }
+
+    private void recordSent(long bytes) {
+        messagesSent.incrementAndGet();
+        bytesSent.addAndGet(bytes);
+    }
+
+    public long queueSize() {
+        WebSocket socket = connection.get().socket;
+        return socket != null ? socket.queueSize() : 0;
+    }
+
+    public ChannelStats snapshot() {
+        Connection current = connection.get();
+        long queueBytes = current.socket != null ? current.socket.queueSize() : 0;
+        return new ChannelStats(name, current.state, messagesSent.get(), bytesSent.get(), queueBytes, lastError,
+                latencyTracker.getRttPercentileMs(50), latencyTracker.getRttPercentileMs(90),
+                latencyTracker.getRttPercentileMs(99));
+    }
+}
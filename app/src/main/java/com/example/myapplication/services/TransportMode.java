@@ -0,0 +1,6 @@
+package com.example.myapplication.services;
+
+public enum TransportMode {
+    SEPARATE,    // One WebSocket each for /ws/data1, /ws/data2 and /ws/image
+    MULTIPLEXED  // All three channels on /ws/mux, tagged with MuxCodec
+}
@@ -0,0 +1,60 @@
+package com.example.myapplication.services;
+
+import java.util.Collections;
+import java.util.List;
+
+// Immutable snapshot of every transport channel, published by WebSocketService.
+public final class TransportStats {
+    private final long timestampMs;
+    private final List<ChannelStats> channels;
+    private final boolean clockSynced;
+    private final long clockOffsetMs;
+
+    public TransportStats(long timestampMs, List<ChannelStats> channels, boolean clockSynced, long clockOffsetMs) {
+        this.timestampMs = timestampMs;
+        this.channels = Collections.unmodifiableList(channels);
+        this.clockSynced = clockSynced;
+        this.clockOffsetMs = clockOffsetMs;
+    }
+
+    public long getTimestampMs() {
+        return timestampMs;
+    }
+
+    public List<ChannelStats> getChannels() {
+        return channels;
+    }
+
+    public boolean isClockSynced() {
+        return clockSynced;
+    }
+
+    // Server clock minus device clock.
+    public long getClockOffsetMs() {
+        return clockOffsetMs;
+    }
+
+    public ChannelStats get(String name) {
+        for (ChannelStats channel : channels) {
+            if (channel.getName().equals(name)) {
+                return channel;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (ChannelStats channel : channels) {
+            if (builder.length() > 0) {
+                builder.append('\n');
+            }
+            builder.append(channel);
+        }
+        if (clockSynced) {
+            builder.append("\nServer clock offset: ").append(clockOffsetMs).append(" ms");
+        }
+        return builder.toString();
+    }
+}
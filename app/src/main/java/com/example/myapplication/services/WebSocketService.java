@@ -1,41 +1,140 @@
 package com.example.myapplication.services;
 
+import android.os.SystemClock;
 import android.util.Base64;
 import android.util.Log;
 import androidx.camera.core.ImageProxy;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import com.example.myapplication.camera.CapturedFrame;
+import com.example.myapplication.cell.CellBinaryEncoder;
+import com.example.myapplication.cell.CellJsonWriter;
+import com.example.myapplication.cell.NeighborCellReport;
+import com.example.myapplication.cell.PrimaryCellReport;
+import com.example.myapplication.cell.SimCellReport;
+import com.example.myapplication.camera.FrameEncoder;
+import com.example.myapplication.camera.FrameTransform;
+import com.example.myapplication.camera.ImageColorMode;
+import com.example.myapplication.camera.MotionGate;
+import com.example.myapplication.metrics.Counter;
+import com.example.myapplication.metrics.Gauge;
+import com.example.myapplication.metrics.LatencyHistogram;
+import com.example.myapplication.metrics.MetricsRegistry;
+import com.example.myapplication.metrics.MetricsSnapshot;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
 import okhttp3.WebSocket;
 import okhttp3.WebSocketListener;
-import java.io.ByteArrayOutputStream;
-import java.nio.ByteBuffer;
+import okio.ByteString;
+import okio.Utf8;
+import org.json.JSONException;
+import org.json.JSONObject;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
-import android.graphics.Bitmap;
-import android.graphics.ImageFormat;
-import android.graphics.Rect;
-import android.graphics.YuvImage;
-import android.graphics.BitmapFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 public class WebSocketService {
     private static WebSocketService instance;
+    private static final long MAX_IMAGE_QUEUE_BYTES = 4 * 1024 * 1024; // Well below OkHttp's 16 MiB close threshold
+    private static final long STATS_INTERVAL_MS = 1000;
+    private static final long HEARTBEAT_INTERVAL_MS = 5000;
+    private static final long PONG_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(15); // Three missed heartbeats
+    private static final int SPOOL_REPLAY_BATCH = 50;
+    private static final long SPOOL_REPLAY_MAX_QUEUE_BYTES = 256 * 1024; // Leave room for live samples
+    private static final long SPOOL_REPLAY_RETRY_MS = 500;
+    private static final int MAX_BATCH_BYTES = 64 * 1024;
+    private static final long MAX_IMAGE_DEFER_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+    private static final long IMAGE_DEFER_POLL_MS = 5;
+    private static final long CELL_CONGESTED_QUEUE_BYTES = 16 * 1024; // Dozens of unsent cell messages
+    private static final long MUX_CONGESTED_QUEUE_BYTES = CELL_CONGESTED_QUEUE_BYTES + 128 * 1024; // Plus the one frame SendScheduler lets queue
+    private static final long CELL_REPORT_DRAIN_MS = 250;
     private final OkHttpClient client;
-    private WebSocket data1WebSocket; // For /ws/data1 (primary_cell)
-    private WebSocket data2WebSocket; // For /ws/data2 (neighboring_cells)
-    private WebSocket imageWebSocket; // For /ws/image (camera frames)
+    private final TransportChannel data1Channel = new TransportChannel("data1", "/ws/data1"); // primary_cell
+    private final TransportChannel data2Channel = new TransportChannel("data2", "/ws/data2"); // neighboring_cells
+    private final TransportChannel imageChannel = new TransportChannel("image", "/ws/image"); // camera frames
+    private final TransportChannel muxChannel = new TransportChannel("mux", "/ws/mux"); // all three, multiplexed mode only
+    private final TransportChannel[] channels = {data1Channel, data2Channel, imageChannel, muxChannel};
+    private volatile TransportMode transportMode = TransportMode.SEPARATE;
     private String serverAddress;
     private String port;
-    private final MutableLiveData<Boolean> isStreaming = new MutableLiveData<>(false);
+    private final MutableLiveData<Boolean> isStreaming = new MutableLiveData<>(false); // At least one socket open
+    private final MutableLiveData<Boolean> sessionActive = new MutableLiveData<>(false); // Between connect() and disconnect()
     private final MutableLiveData<String> connectionStatus = new MutableLiveData<>("Disconnected");
     private final MutableLiveData<String> errorMessage = new MutableLiveData<>();
+    private final MutableLiveData<TransportStats> transportStats = new MutableLiveData<>();
+    private final MutableLiveData<MetricsSnapshot> metricsSnapshot = new MutableLiveData<>();
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private final LatencyHistogram serializePrimaryLatency = metrics.histogram("serialize.primary");
+    private final LatencyHistogram serializeNeighborsLatency = metrics.histogram("serialize.neighbors");
+    private final LatencyHistogram imageCaptureLatency = metrics.histogram("image.capture");
+    private final LatencyHistogram imageEncodeLatency = metrics.histogram("image.encode");
+    private final Counter cellMessagesSpooled = metrics.counter("cell.spooled");
+    private final Counter imageFramesDropped = metrics.counter("image.dropped_backlog");
+    private final SendScheduler sendScheduler = new SendScheduler(metrics, MAX_IMAGE_DEFER_NANOS);
+    private final ConflatingQueue<PrimaryCellReport> queuedPrimaryReports = new ConflatingQueue<>(); // Guarded by cellReportLock for ordering
+    private final ConflatingQueue<NeighborCellReport> queuedNeighborReports = new ConflatingQueue<>();
+    private final Object cellReportLock = new Object();
+    private final AtomicBoolean cellReportDrainScheduled = new AtomicBoolean();
+    private final Counter cellReportsConflated = metrics.counter("cell.conflated");
+    private final Gauge cellReportsQueued = metrics.gauge("cell.queued_reports");
+    private volatile boolean verboseLogging = false; // Per-message debug logs; off so they cost nothing
+    private final Map<String, ScheduledFuture<?>> pendingReconnects = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private volatile boolean reconnectEnabled = false; // Cleared when the user disconnects
+    private volatile TelemetrySpool telemetrySpool; // Null until enableOfflineSpool()
+    private final AtomicBoolean spoolReplayScheduled = new AtomicBoolean();
+    private volatile MessageBatcher primaryBatcher; // Null while batching is off
+    private volatile MessageBatcher neighborBatcher;
+    private volatile long batchWindowMs;
+    private final AtomicBoolean batchFlushScheduled = new AtomicBoolean();
+    private volatile boolean cellCompressionRequested = false;
+    private final CellMessageCompressor cellCompressor = new CellMessageCompressor();
+    private volatile boolean binaryCellFormatRequested = false;
+    private volatile CellDeltaEncoder primaryDelta; // Null while delta mode is off
+    private volatile CellDeltaEncoder neighborDelta;
+    private final FrameEncoder frameEncoder = new FrameEncoder(); // capture() on the analyzer thread, compress() on the encode stage
+    private final MotionGate motionGate = new MotionGate(); // Checked on the analyzer thread, marked on the send stage
+    private volatile ImageTransportMode imageTransportMode = ImageTransportMode.TEXT;
+    private int imageSequence = 0; // Camera analyzer thread only
+    private volatile long imageBytesEnqueued = 0; // Written by the send stage only
+    private final StageStats captureStats = new StageStats("capture");
+    private final PipelineStage<CapturedFrame> encodeStage =
+            new PipelineStage<>("encode", 2, this::encodeFrame, frameEncoder::release);
+    private final PipelineStage<ImagePayload> sendStage =
+            new PipelineStage<>("send", 2, this::sendImagePayload, payload -> { });
+    private final AdaptiveStreamController streamController = new AdaptiveStreamController();
+    private final FrameRateLimiter frameRateLimiter = new FrameRateLimiter(1000.0 / streamController.getFrameIntervalMs(), 1);
+    private volatile double maxFrameRate = 1000.0 / AdaptiveStreamController.DEFAULT_MIN_INTERVAL_MS;
+    private final MutableLiveData<Long> targetFrameIntervalMs = new MutableLiveData<>(streamController.getFrameIntervalMs());
+    private final MutableLiveData<Integer> targetJpegQuality = new MutableLiveData<>(streamController.getJpegQuality());
 
     private WebSocketService() {
         client = new OkHttpClient.Builder()
                 .connectTimeout(10, TimeUnit.SECONDS)
                 .readTimeout(10, TimeUnit.SECONDS)
+                .pingInterval(15, TimeUnit.SECONDS) // Protocol-level keepalive through NATs and proxies
                 .build();
+        scheduler.scheduleAtFixedRate(() -> {
+            if (reconnectEnabled) {
+                publishTransportStats();
+            }
+            metricsSnapshot.postValue(metrics.snapshot());
+        }, STATS_INTERVAL_MS, STATS_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        scheduler.scheduleAtFixedRate(() -> {
+            if (reconnectEnabled) {
+                sendHeartbeats();
+            }
+        }, HEARTBEAT_INTERVAL_MS, HEARTBEAT_INTERVAL_MS, TimeUnit.MILLISECONDS);
     }
 
     public static synchronized WebSocketService getInstance() {
@@ -49,6 +148,12 @@ public class WebSocketService {
         return isStreaming;
     }
 
+    // True from connect() until disconnect(), including while every socket is down and waiting
+    // to reconnect; drives the Start/Stop button.
+    public LiveData<Boolean> getSessionActive() {
+        return sessionActive;
+    }
+
     public LiveData<String> getConnectionStatus() {
         return connectionStatus;
     }
@@ -57,9 +162,160 @@ public class WebSocketService {
         return errorMessage;
     }
 
+    // Per-channel state, counters and queue sizes; refreshed every second while connected.
+    public LiveData<TransportStats> getTransportStats() {
+        return transportStats;
+    }
+
+    // Hot-path latency histograms, counters and gauges; refreshed every second.
+    public LiveData<MetricsSnapshot> getMetrics() {
+        return metricsSnapshot;
+    }
+
+    // Appends the current metrics to file; call off the main thread.
+    public void dumpMetrics(File file) throws IOException {
+        metrics.dump(file);
+    }
+
+    public void setVerboseLogging(boolean enabled) {
+        verboseLogging = enabled;
+    }
+
+    public boolean isVerboseLogging() {
+        return verboseLogging;
+    }
+
+    // Bytes-per-second budget for "data1", "data2" or "image", whichever socket carries it; 0
+    // for no limit. Cell messages over budget are spooled, image frames deferred or dropped.
+    public void setChannelBudget(String channel, long bytesPerSecond) {
+        sendScheduler.setBudget(channel, bytesPerSecond);
+    }
+
+    public long getChannelBudget(String channel) {
+        return sendScheduler.getBudget(channel);
+    }
+
+    public TransportStats snapshotTransportStats() {
+        List<ChannelStats> stats = new ArrayList<>(channels.length);
+        for (TransportChannel channel : channels) {
+            stats.add(channel.snapshot());
+        }
+        return new TransportStats(System.currentTimeMillis(), stats, isClockSynced(), getClockOffsetMs());
+    }
+
+    // Server clock minus device clock, from the channel whose offset sample had the lowest RTT;
+    // 0 until a pong has been received.
+    public long getClockOffsetMs() {
+        LatencyTracker best = bestClockSource();
+        return best == null ? 0 : best.getClockOffsetMs();
+    }
+
+    public boolean isClockSynced() {
+        return bestClockSource() != null;
+    }
+
+    private LatencyTracker bestClockSource() {
+        LatencyTracker best = null;
+        for (TransportChannel channel : channels) {
+            LatencyTracker tracker = channel.getLatencyTracker();
+            if (tracker.isOffsetKnown() && (best == null || tracker.getOffsetRttMs() < best.getOffsetRttMs())) {
+                best = tracker;
+            }
+        }
+        return best;
+    }
+
+    // Scheduler thread. Application-level pings measure RTT and clock offset on sockets whose
+    // server accepted them; OkHttp's own pings only keep the socket alive. A socket whose server
+    // stops answering is cancelled, which goes through onFailure and the reconnect policy.
+    private void sendHeartbeats() {
+        for (TransportChannel channel : channels) {
+            if (!channel.isOpen() || !channel.isHeartbeatEnabled()) {
+                continue;
+            }
+            LatencyTracker tracker = channel.getLatencyTracker();
+            if (tracker.hasTimedOut(System.nanoTime(), PONG_TIMEOUT_NANOS)) {
+                Log.e("WebSocketService", "No pong on " + channel.getName() + ", reconnecting");
+                WebSocket socket = channel.openSocket();
+                if (socket != null) {
+                    socket.cancel();
+                }
+                continue;
+            }
+            String ping = tracker.createPing(System.currentTimeMillis(), System.nanoTime());
+            if (channel == muxChannel) {
+                channel.send(MuxCodec.encodeText(MuxCodec.CHANNEL_CONTROL, ping));
+            } else {
+                channel.send(ping);
+            }
+        }
+    }
+
+    private void publishTransportStats() {
+        transportStats.postValue(snapshotTransportStats());
+    }
+
+    // Streaming as long as at least one channel is open; each send checks its own channel.
+    private void updateStreamingState() {
+        boolean anyOpen = false;
+        for (TransportChannel channel : channels) {
+            anyOpen |= channel.isOpen();
+        }
+        isStreaming.postValue(anyOpen);
+        publishTransportStats();
+    }
+
+    public LiveData<Long> getTargetFrameIntervalMs() {
+        return targetFrameIntervalMs;
+    }
+
+    public LiveData<Integer> getTargetJpegQuality() {
+        return targetJpegQuality;
+    }
+
+    public AdaptiveStreamController getStreamController() {
+        return streamController;
+    }
+
+    // Upper bound for the camera frame rate; the adaptive controller may send slower.
+    // Fractional rates are allowed, e.g. setMaxFrameRate(2.5, 3) for 2.5 fps with bursts of 3.
+    public void setMaxFrameRate(double framesPerSecond, int burst) {
+        if (framesPerSecond <= 0) {
+            throw new IllegalArgumentException("Frame rate must be positive");
+        }
+        maxFrameRate = framesPerSecond;
+        frameRateLimiter.setRate(Math.min(framesPerSecond, 1000.0 / streamController.getFrameIntervalMs()), burst);
+    }
+
+    public FrameRateLimiter getFrameRateLimiter() {
+        return frameRateLimiter;
+    }
+
+    private void updateFrameRate() {
+        double adaptiveRate = 1000.0 / streamController.getFrameIntervalMs();
+        frameRateLimiter.setRate(Math.min(maxFrameRate, adaptiveRate), frameRateLimiter.getBurst());
+    }
+
+    public TransportMode getTransportMode() {
+        return transportMode;
+    }
+
+    // Takes effect on the next connect().
+    public void setTransportMode(TransportMode mode) {
+        transportMode = mode;
+    }
+
+    public ImageTransportMode getImageTransportMode() {
+        return imageTransportMode;
+    }
+
+    public void setImageTransportMode(ImageTransportMode mode) {
+        imageTransportMode = mode;
+    }
+
     public void connect(String serverAddress, String port) {
-        if (Boolean.TRUE.equals(isStreaming.getValue())) {
-            return; // Already connected
+        if (reconnectEnabled) {
+            return; // Already connected or reconnecting
         }
 
         if (serverAddress.trim().isEmpty() || port.trim().isEmpty()) {
@@ -69,131 +325,811 @@ public class WebSocketService {
 
         this.serverAddress = serverAddress.trim();
         this.port = port.trim();
+        reconnectEnabled = true;
+        sessionActive.postValue(true);
+        for (ScheduledFuture<?> reconnect : pendingReconnects.values()) {
+            reconnect.cancel(false);
+        }
+        pendingReconnects.clear();
 
-        // Connect to all three endpoints
-        connectToEndpoint("data1", "/ws/data1");
-        connectToEndpoint("data2", "/ws/data2");
-        connectToEndpoint("image", "/ws/image");
+        if (transportMode == TransportMode.MULTIPLEXED) {
+            if (!muxChannel.isActive()) connectToEndpoint(muxChannel);
+            return;
+        }
+
+        // Connect to all three endpoints, skipping any that are still open or connecting
+        if (!data1Channel.isActive()) connectToEndpoint(data1Channel);
+        if (!data2Channel.isActive()) connectToEndpoint(data2Channel);
+        if (!imageChannel.isActive()) connectToEndpoint(imageChannel);
     }
 
-    private void connectToEndpoint(String endpointType, String path) {
+    private void connectToEndpoint(TransportChannel channel) {
+        String path = channel.getPath();
         String url = "ws://" + serverAddress + ":" + port + path;
-        Request request = new Request.Builder().url(url).build();
+        Request.Builder requestBuilder = new Request.Builder().url(url)
+                .header(LatencyTracker.HEADER, LatencyTracker.VERSION_NAME);
+        if (cellCompressionRequested && (channel == data1Channel || channel == data2Channel)) {
+            requestBuilder.header(CellMessageCompressor.HEADER, CellMessageCompressor.VERSION_NAME);
+        }
+        if (binaryCellFormatRequested && channel != imageChannel) {
+            requestBuilder.header(CellBinaryEncoder.HEADER, CellBinaryEncoder.VERSION_NAME);
+        }
+        Request request = requestBuilder.build();
 
         WebSocketListener listener = new WebSocketListener() {
             @Override
             public void onOpen(WebSocket ws, Response response) {
-                synchronized (this) {
-                    if (endpointType.equals("data1")) data1WebSocket = ws;
-                    else if (endpointType.equals("data2")) data2WebSocket = ws;
-                    else if (endpointType.equals("image")) imageWebSocket = ws;
+                boolean current;
+                synchronized (channel) { // Wait for connectToEndpoint to register this socket
+                    current = channel.markOpen(ws);
+                }
+                if (!current) {
+                    ws.close(1000, "Superseded");
+                    return;
+                }
+                if (channel == imageChannel || channel == muxChannel) {
+                    streamController.resetSamples();
+                    motionGate.reset();
+                }
+                // The server opts in to compression by echoing the header
+                channel.setCompressed(CellMessageCompressor.VERSION_NAME.equals(
+                        response.header(CellMessageCompressor.HEADER)));
+                channel.setCellEncoder(CellBinaryEncoder.VERSION_NAME.equals(response.header(CellBinaryEncoder.HEADER))
+                        ? new CellBinaryEncoder() : null); // Fresh string table per socket
+                channel.setHeartbeatEnabled(LatencyTracker.VERSION_NAME.equals(response.header(LatencyTracker.HEADER)));
+                channel.getReconnectPolicy().onConnected(SystemClock.elapsedRealtime());
+                channel.getLatencyTracker().clearPending(); // Pings on the old socket will not be answered
+                updateStreamingState();
+                if (channel != imageChannel) {
+                    requestDeltaKeyframes(); // The server may have lost its decoder state
+                    scheduleSpoolReplay(0);
                 }
-                isStreaming.postValue(true);
                 connectionStatus.postValue("Connected to " + path);
                 Log.d("WebSocketService", "Connected to " + url);
             }
 
             @Override
             public void onFailure(WebSocket ws, Throwable t, Response response) {
-                isStreaming.postValue(false);
+                boolean current;
+                synchronized (channel) {
+                    current = channel.markFailed(ws, t.getMessage());
+                }
+                if (!current) {
+                    return;
+                }
+                updateStreamingState();
+                if (channel != imageChannel) {
+                    flushCellBatches(); // Into the spool rather than waiting out the window
+                }
                 connectionStatus.postValue("Disconnected from " + path);
                 errorMessage.postValue("Connection failed for " + path + ": " + t.getMessage());
                 Log.e("WebSocketService", "Connection failed for " + url + ": " + t.getMessage());
+                scheduleReconnect(channel);
+            }
+
+            @Override
+            public void onClosing(WebSocket ws, int code, String reason) {
+                if (channel.markClosing(ws)) {
+                    updateStreamingState();
+                    if (channel != imageChannel) {
+                        flushCellBatches();
+                    }
+                }
+                ws.close(code, null); // Complete the close handshake started by the server
             }
 
             @Override
             public void onClosed(WebSocket ws, int code, String reason) {
-                isStreaming.postValue(false);
+                if (!channel.markClosed(ws)) {
+                    return;
+                }
+                updateStreamingState();
                 connectionStatus.postValue("Disconnected from " + path);
                 Log.d("WebSocketService", "Disconnected from " + url + ": " + reason);
+                scheduleReconnect(channel);
             }
 
             @Override
             public void onMessage(WebSocket ws, String text) {
-                Log.d("WebSocketService", "Received from " + path + ": " + text);
+                if (verboseLogging) {
+                    Log.d("WebSocketService", "Received from " + path + ": " + text);
+                }
+                if (channel == data1Channel) {
+                    handleControlMessage(channel, primaryDelta, text);
+                } else if (channel == data2Channel) {
+                    handleControlMessage(channel, neighborDelta, text);
+                } else {
+                    handleControlMessage(channel, null, text);
+                }
+            }
+
+            @Override
+            public void onMessage(WebSocket ws, ByteString bytes) {
+                if (channel != muxChannel) {
+                    return;
+                }
+                if (bytes.size() < 1) {
+                    // Throwing here would make OkHttp fail the socket and every channel on it
+                    Log.w("WebSocketService", "Dropping empty multiplexed frame");
+                    return;
+                }
+                if (MuxCodec.isBinary(bytes)) {
+                    return;
+                }
+                int channelId = MuxCodec.channel(bytes);
+                if (channelId == MuxCodec.CHANNEL_PRIMARY) {
+                    handleControlMessage(channel, primaryDelta, MuxCodec.text(bytes));
+                } else if (channelId == MuxCodec.CHANNEL_NEIGHBORS) {
+                    handleControlMessage(channel, neighborDelta, MuxCodec.text(bytes));
+                } else if (channelId == MuxCodec.CHANNEL_CONTROL) {
+                    handleControlMessage(channel, null, MuxCodec.text(bytes));
+                }
             }
         };
 
-        client.newWebSocket(request, listener);
+        channel.getReconnectPolicy().onAttempt();
+        // Hold the channel lock so an early onOpen/onFailure waits until this socket is registered
+        synchronized (channel) {
+            WebSocket previous = channel.beginAttempt(client.newWebSocket(request, listener));
+            if (previous != null) {
+                previous.cancel();
+            }
+        }
+        publishTransportStats();
     }
 
-    public void disconnect() {
-        if (data1WebSocket != null) {
-            data1WebSocket.close(1000, "User disconnected");
-            data1WebSocket = null;
+    private void scheduleReconnect(TransportChannel channel) {
+        if (!reconnectEnabled) {
+            return;
         }
-        if (data2WebSocket != null) {
-            data2WebSocket.close(1000, "User disconnected");
-            data2WebSocket = null;
+        ReconnectPolicy reconnectPolicy = channel.getReconnectPolicy();
+        long delayMs = reconnectPolicy.onFailure(SystemClock.elapsedRealtime());
+        boolean circuitOpen = reconnectPolicy.getState() == ReconnectPolicy.CircuitState.OPEN;
+        connectionStatus.postValue("Reconnecting to " + channel.getPath() + " in " + (delayMs / 1000) + " s"
+                + (circuitOpen ? " (too many failures)" : ""));
+        Log.d("WebSocketService", "Reconnecting to " + channel.getPath() + " in " + delayMs + " ms, failures: "
+                + reconnectPolicy.getConsecutiveFailures());
+
+        ScheduledFuture<?> reconnect = scheduler.schedule(() -> {
+            pendingReconnects.remove(channel.getName());
+            if (reconnectEnabled) {
+                connectToEndpoint(channel);
+            }
+        }, delayMs, TimeUnit.MILLISECONDS);
+        ScheduledFuture<?> previous = pendingReconnects.put(channel.getName(), reconnect);
+        if (previous != null) {
+            previous.cancel(false);
+        }
+    }
+
+    // Reconnect attempts, circuit state and downtime for "data1", "data2", "image" or "mux".
+    public ReconnectPolicy getReconnectPolicy(String channelName) {
+        for (TransportChannel channel : channels) {
+            if (channel.getName().equals(channelName)) {
+                return channel.getReconnectPolicy();
+            }
         }
-        if (imageWebSocket != null) {
-            imageWebSocket.close(1000, "User disconnected");
-            imageWebSocket = null;
+        return null;
+    }
+
+    public void disconnect() {
+        drainCellReports(true);
+        flushCellBatches(); // While the sockets are still open
+        reconnectEnabled = false;
+        sessionActive.postValue(false);
+        for (ScheduledFuture<?> reconnect : pendingReconnects.values()) {
+            reconnect.cancel(false);
+        }
+        pendingReconnects.clear();
+        for (TransportChannel channel : channels) {
+            synchronized (channel) {
+                channel.detach(1000, "User disconnected");
+            }
+            channel.getReconnectPolicy().reset();
         }
         isStreaming.postValue(false);
         connectionStatus.postValue("Disconnected");
+        publishTransportStats();
+    }
+
+    // Groups cell samples per channel into one message every windowMs or maxSamples samples,
+    // whichever comes first. A window of 0 or maxSamples of 1 turns batching off.
+    public void setCellBatching(long windowMs, int maxSamples) {
+        if (windowMs > 0 && maxSamples > 1) {
+            batchWindowMs = windowMs;
+            MessageBatcher oldPrimary = primaryBatcher;
+            MessageBatcher oldNeighbor = neighborBatcher;
+            primaryBatcher = new MessageBatcher(maxSamples, MAX_BATCH_BYTES);
+            neighborBatcher = new MessageBatcher(maxSamples, MAX_BATCH_BYTES);
+            flushBatch(oldPrimary, MuxCodec.CHANNEL_PRIMARY);
+            flushBatch(oldNeighbor, MuxCodec.CHANNEL_NEIGHBORS);
+        } else {
+            flushCellBatches();
+            primaryBatcher = null;
+            neighborBatcher = null;
+        }
+    }
+
+    public boolean isCellBatchingEnabled() {
+        return primaryBatcher != null;
+    }
+
+    // Sends keyframes and per-cell deltas instead of full messages on both cell streams.
+    public void setCellDeltaEncoding(boolean enabled) {
+        primaryDelta = enabled ? new CellDeltaEncoder() : null;
+        neighborDelta = enabled ? new CellDeltaEncoder() : null;
+    }
+
+    public boolean isCellDeltaEncodingEnabled() {
+        return primaryDelta != null;
+    }
+
+    // Only live messages are delta-encoded; spooled ones stay full so they decode on their own.
+    // The frame must be committed once it is sent, or null if delta mode is off.
+    private CellDeltaEncoder.Frame prepareDelta(CellDeltaEncoder encoder, int channelId, String jsonData) {
+        if (encoder == null || !cellTransport(channelId).isOpen()) {
+            return null;
+        }
+        try {
+            return encoder.prepare(jsonData);
+        } catch (JSONException e) {
+            Log.e("WebSocketService", "Delta encoding failed: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void requestDeltaKeyframes() {
+        CellDeltaEncoder primary = primaryDelta;
+        CellDeltaEncoder neighbors = neighborDelta;
+        if (primary != null) primary.requestKeyframe();
+        if (neighbors != null) neighbors.requestKeyframe();
+    }
+
+    // {"type":"pong",...} answering our pings, and {"type":"ack","seq":N} and {"type":"resync"}
+    // from the server's delta decoder.
+    private void handleControlMessage(TransportChannel channel, CellDeltaEncoder encoder, String text) {
+        if (!text.startsWith("{")) {
+            return;
+        }
+        long nowMs = System.currentTimeMillis();
+        long nowNanos = System.nanoTime();
+        try {
+            JSONObject message = new JSONObject(text);
+            String type = message.optString("type");
+            if ("pong".equals(type)) {
+                channel.getLatencyTracker().onPong(message.getInt("id"), message.getLong("t1"),
+                        message.getLong("t2"), nowMs, nowNanos);
+            } else if (encoder == null) {
+                return;
+            } else if ("ack".equals(type)) {
+                encoder.onAck(message.getInt("seq"));
+            } else if ("resync".equals(type)) {
+                encoder.requestKeyframe();
+            }
+        } catch (JSONException e) {
+            Log.e("WebSocketService", "Bad control message: " + e.getMessage());
+        }
+    }
+
+    // Offers the compact binary cell format on the data and mux sockets from the next connect.
+    public void setBinaryCellFormat(boolean enabled) {
+        binaryCellFormatRequested = enabled;
+    }
+
+    public boolean isBinaryCellFormatRequested() {
+        return binaryCellFormatRequested;
+    }
+
+    // Reports are sent right away unless the socket's queue is backed up. Then they wait here,
+    // and a newer report replaces an unsent one for the same SIMs (primary) or the previous
+    // neighbor scan, which lists every visible cell and is superseded whole.
+    public void sendPrimaryCellReport(PrimaryCellReport report) {
+        synchronized (cellReportLock) {
+            if (!queueIfCongested(queuedPrimaryReports, MuxCodec.CHANNEL_PRIMARY, primaryReportKey(report), report)) {
+                dispatchPrimaryCellReport(report);
+            }
+        }
+    }
+
+    public void sendNeighborCellReport(NeighborCellReport report) {
+        synchronized (cellReportLock) {
+            if (!queueIfCongested(queuedNeighborReports, MuxCodec.CHANNEL_NEIGHBORS, "neighbors", report)) {
+                dispatchNeighborCellReport(report);
+            }
+        }
+    }
+
+    // Keeps every report instead of replacing unsent ones, e.g. for drive tests.
+    public void setStrictCellDelivery(boolean strict) {
+        queuedPrimaryReports.setStrict(strict);
+        queuedNeighborReports.setStrict(strict);
+    }
+
+    public boolean isStrictCellDelivery() {
+        return queuedPrimaryReports.isStrict();
+    }
+
+    private static String primaryReportKey(PrimaryCellReport report) {
+        StringBuilder key = new StringBuilder("sims");
+        for (SimCellReport sim : report.sims) {
+            key.append(':').append(sim.simSlot);
+        }
+        return key.toString();
+    }
+
+    private boolean isCellTransportCongested(int channelId) {
+        TransportChannel channel = cellTransport(channelId);
+        long limit = channel == muxChannel ? MUX_CONGESTED_QUEUE_BYTES : CELL_CONGESTED_QUEUE_BYTES;
+        return channel.isOpen() && channel.queueSize() > limit;
+    }
+
+    // Caller holds cellReportLock. Reports queue behind earlier ones even once the congestion
+    // clears, so they stay in order.
+    private <T> boolean queueIfCongested(ConflatingQueue<T> queue, int channelId, String key, T report) {
+        if (queue.size() == 0 && !isCellTransportCongested(channelId)) {
+            return false;
+        }
+        if (queue.offer(key, report)) {
+            cellReportsConflated.increment();
+        }
+        cellReportsQueued.set(queuedPrimaryReports.size() + queuedNeighborReports.size());
+        scheduleCellReportDrain();
+        return true;
+    }
+
+    // Scheduler thread, or disconnect() with force to push out everything before the sockets
+    // close. A socket that is down counts as uncongested: its reports go to the spool.
+    private void drainCellReports(boolean force) {
+        int left;
+        synchronized (cellReportLock) {
+            drainReports(queuedPrimaryReports, MuxCodec.CHANNEL_PRIMARY, force, this::dispatchPrimaryCellReport);
+            drainReports(queuedNeighborReports, MuxCodec.CHANNEL_NEIGHBORS, force, this::dispatchNeighborCellReport);
+            left = queuedPrimaryReports.size() + queuedNeighborReports.size();
+        }
+        cellReportsQueued.set(left);
+        if (left > 0) {
+            scheduleCellReportDrain();
+        }
+    }
+
+    private void scheduleCellReportDrain() {
+        if (cellReportDrainScheduled.compareAndSet(false, true)) {
+            scheduler.schedule(() -> {
+                cellReportDrainScheduled.set(false);
+                drainCellReports(false);
+            }, CELL_REPORT_DRAIN_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private <T> void drainReports(ConflatingQueue<T> queue, int channelId, boolean force, Consumer<T> dispatch) {
+        T report;
+        while ((force || !isCellTransportCongested(channelId)) && (report = queue.poll()) != null) {
+            dispatch.accept(report);
+        }
+    }
+
+    private void dispatchPrimaryCellReport(PrimaryCellReport report) {
+        long clockOffsetMs = getClockOffsetMs();
+        TransportChannel channel = binaryCellTransport(MuxCodec.CHANNEL_PRIMARY, primaryBatcher, primaryDelta);
+        if (channel != null) {
+            CellBinaryEncoder encoder = channel.getCellEncoder();
+            long start = System.nanoTime();
+            byte[] message = encoder.encode(report, clockOffsetMs);
+            serializePrimaryLatency.recordSince(start);
+            if (!admitCellMessage(MuxCodec.CHANNEL_PRIMARY, message.length)) {
+                encoder.discardLast(); // The server never sees the strings this message added
+                spoolCellMessage(MuxCodec.CHANNEL_PRIMARY, CellJsonWriter.write(report, clockOffsetMs));
+                return;
+            }
+            if (sendBinaryCellMessage(channel, MuxCodec.CHANNEL_PRIMARY, message)) {
+                sendScheduler.onCellSent();
+                return;
+            }
+            encoder.discardLast();
+        }
+        long start = System.nanoTime();
+        String json = CellJsonWriter.write(report, clockOffsetMs);
+        serializePrimaryLatency.recordSince(start);
+        sendPrimaryCellData(json);
+    }
+
+    private void dispatchNeighborCellReport(NeighborCellReport report) {
+        long clockOffsetMs = getClockOffsetMs();
+        TransportChannel channel = binaryCellTransport(MuxCodec.CHANNEL_NEIGHBORS, neighborBatcher, neighborDelta);
+        if (channel != null) {
+            CellBinaryEncoder encoder = channel.getCellEncoder();
+            long start = System.nanoTime();
+            byte[] message = encoder.encode(report, clockOffsetMs);
+            serializeNeighborsLatency.recordSince(start);
+            if (!admitCellMessage(MuxCodec.CHANNEL_NEIGHBORS, message.length)) {
+                encoder.discardLast(); // The server never sees the strings this message added
+                spoolCellMessage(MuxCodec.CHANNEL_NEIGHBORS, CellJsonWriter.write(report, clockOffsetMs));
+                return;
+            }
+            if (sendBinaryCellMessage(channel, MuxCodec.CHANNEL_NEIGHBORS, message)) {
+                sendScheduler.onCellSent();
+                return;
+            }
+            encoder.discardLast();
+        }
+        long start = System.nanoTime();
+        String json = CellJsonWriter.write(report, clockOffsetMs);
+        serializeNeighborsLatency.recordSince(start);
+        sendNeighboringCellData(json);
+    }
+
+    // The channel to send a binary report on, or null to use JSON: the socket did not negotiate
+    // the binary format, it is down (JSON is what gets spooled), or batching or delta mode is on.
+    private TransportChannel binaryCellTransport(int channelId, MessageBatcher batcher, CellDeltaEncoder delta) {
+        if (batcher != null || delta != null) {
+            return null;
+        }
+        TransportChannel channel = cellTransport(channelId);
+        return channel.isOpen() && channel.getCellEncoder() != null ? channel : null;
+    }
+
+    private boolean sendBinaryCellMessage(TransportChannel channel, int channelId, byte[] message) {
+        ByteString bytes = ByteString.of(message);
+        return channel == muxChannel
+                ? channel.send(MuxCodec.encodeBinary(channelId, bytes))
+                : channel.send(bytes);
+    }
+
+    private boolean admitCellMessage(int channelId, long bytes) {
+        String budget = channelId == MuxCodec.CHANNEL_PRIMARY ? data1Channel.getName() : data2Channel.getName();
+        return sendScheduler.admitCell(budget, bytes, System.nanoTime());
     }
 
     public void sendPrimaryCellData(String jsonData) {
-        if (Boolean.TRUE.equals(isStreaming.getValue()) && data1WebSocket != null) {
-            data1WebSocket.send(jsonData);
-            Log.d("WebSocketService", "Sent primary cell data: " + jsonData.substring(0, Math.min(jsonData.length(), 50)) + "...");
+        CellDeltaEncoder.Frame delta = prepareDelta(primaryDelta, MuxCodec.CHANNEL_PRIMARY, jsonData);
+        MessageBatcher batcher = primaryBatcher;
+        if (batcher != null) {
+            batchCellMessage(batcher, MuxCodec.CHANNEL_PRIMARY, jsonData, delta);
+            return;
+        }
+        String message = delta != null ? delta.getText() : jsonData;
+        if (sendCellMessage(MuxCodec.CHANNEL_PRIMARY, message)) {
+            if (delta != null) {
+                delta.commit();
+            }
+            if (verboseLogging) {
+                Log.d("WebSocketService", "Sent primary cell data: " + message.substring(0, Math.min(message.length(), 50)) + "...");
+            }
+        } else {
+            spoolCellMessage(MuxCodec.CHANNEL_PRIMARY, jsonData);
         }
     }
 
     public void sendNeighboringCellData(String jsonData) {
-        if (Boolean.TRUE.equals(isStreaming.getValue()) && data2WebSocket != null) {
-            data2WebSocket.send(jsonData);
-            Log.d("WebSocketService", "Sent neighboring cell data: " + jsonData.substring(0, Math.min(jsonData.length(), 50)) + "...");
+        CellDeltaEncoder.Frame delta = prepareDelta(neighborDelta, MuxCodec.CHANNEL_NEIGHBORS, jsonData);
+        MessageBatcher batcher = neighborBatcher;
+        if (batcher != null) {
+            batchCellMessage(batcher, MuxCodec.CHANNEL_NEIGHBORS, jsonData, delta);
+            return;
+        }
+        String message = delta != null ? delta.getText() : jsonData;
+        if (sendCellMessage(MuxCodec.CHANNEL_NEIGHBORS, message)) {
+            if (delta != null) {
+                delta.commit();
+            }
+            if (verboseLogging) {
+                Log.d("WebSocketService", "Sent neighboring cell data: " + message.substring(0, Math.min(message.length(), 50)) + "...");
+            }
+        } else {
+            spoolCellMessage(MuxCodec.CHANNEL_NEIGHBORS, jsonData);
+        }
+    }
+
+    private void batchCellMessage(MessageBatcher batcher, int channelId, String jsonData, CellDeltaEncoder.Frame delta) {
+        MessageBatcher.Batch batch = batcher.add(jsonData, delta, System.currentTimeMillis());
+        if (batch != null) {
+            sendOrSpool(channelId, batch);
+        }
+        if (batcher.getPendingCount() > 0 && batchFlushScheduled.compareAndSet(false, true)) {
+            scheduler.schedule(() -> {
+                batchFlushScheduled.set(false);
+                flushCellBatches();
+            }, batchWindowMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flushCellBatches() {
+        flushBatch(primaryBatcher, MuxCodec.CHANNEL_PRIMARY);
+        flushBatch(neighborBatcher, MuxCodec.CHANNEL_NEIGHBORS);
+    }
+
+    private void flushBatch(MessageBatcher batcher, int channelId) {
+        MessageBatcher.Batch batch = batcher != null ? batcher.flushBatch() : null;
+        if (batch != null) {
+            sendOrSpool(channelId, batch);
+        }
+    }
+
+    private void sendOrSpool(int channelId, MessageBatcher.Batch batch) {
+        if (sendCellMessage(channelId, batch.text)) {
+            for (CellDeltaEncoder.Frame delta : batch.deltas) {
+                delta.commit();
+            }
+            if (verboseLogging) {
+                Log.d("WebSocketService", "Sent batch on channel " + channelId + ": " + batch.text.length() + " chars");
+            }
+        } else {
+            spoolCellMessage(channelId, batch.fullText);
+        }
+    }
+
+    private TransportChannel cellTransport(int channelId) {
+        if (muxChannel.isOpen()) {
+            return muxChannel;
+        }
+        return channelId == MuxCodec.CHANNEL_PRIMARY ? data1Channel : data2Channel;
+    }
+
+    private boolean sendCellMessage(int channelId, String jsonData) {
+        TransportChannel channel = cellTransport(channelId);
+        if (!channel.isOpen()) {
+            return false;
+        }
+        boolean sent;
+        if (channel == muxChannel) {
+            ByteString frame = MuxCodec.encodeText(channelId, jsonData);
+            sent = admitCellMessage(channelId, frame.size()) && channel.send(frame);
+        } else if (channel.isCompressed()) {
+            ByteString compressed = cellCompressor.compress(jsonData);
+            sent = admitCellMessage(channelId, compressed.size()) && channel.send(compressed);
+        } else {
+            sent = admitCellMessage(channelId, Utf8.size(jsonData)) && channel.send(jsonData);
+        }
+        if (sent) {
+            sendScheduler.onCellSent();
+        }
+        return sent;
+    }
+
+    // Offers dictionary compression on /ws/data1 and /ws/data2 from the next connect; each
+    // socket only compresses if the server accepts.
+    public void setCellCompression(boolean enabled) {
+        cellCompressionRequested = enabled;
+    }
+
+    public boolean isCellCompressionRequested() {
+        return cellCompressionRequested;
+    }
+
+    public CellMessageCompressor getCellCompressor() {
+        return cellCompressor;
+    }
+
+    // Keeps cell samples taken during a session while their socket is down; replayed on reconnect.
+    public void enableOfflineSpool(File file, int capacityBytes) {
+        try {
+            telemetrySpool = new TelemetrySpool(file, capacityBytes);
+            Log.d("WebSocketService", "Offline spool opened with " + telemetrySpool.getPendingCount() + " pending messages");
+        } catch (IOException e) {
+            Log.e("WebSocketService", "Could not open offline spool: " + e.getMessage());
+        }
+    }
+
+    public TelemetrySpool getTelemetrySpool() {
+        return telemetrySpool;
+    }
+
+    private void spoolCellMessage(int channelId, String jsonData) {
+        TelemetrySpool spool = telemetrySpool;
+        if (spool != null && reconnectEnabled) {
+            spool.append(channelId, jsonData);
+            cellMessagesSpooled.increment();
+        }
+    }
+
+    private void scheduleSpoolReplay(long delayMs) {
+        if (telemetrySpool != null && spoolReplayScheduled.compareAndSet(false, true)) {
+            scheduler.schedule(this::replaySpoolBatch, delayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Sends the oldest spooled messages in order, one batch per run, backing off while the
+    // socket queue is busy so live samples are not held up behind the backlog. Messages for a
+    // socket that is down stay in the spool and replay from its onOpen; a busy or failing
+    // socket stops only its own messages, so per-channel order is kept.
+    private void replaySpoolBatch() {
+        spoolReplayScheduled.set(false);
+        TelemetrySpool spool = telemetrySpool;
+        if (spool == null || !reconnectEnabled) {
+            return;
+        }
+        List<TelemetrySpool.Message> batch = spool.peek(SPOOL_REPLAY_BATCH, channelId -> cellTransport(channelId).isOpen());
+        List<TelemetrySpool.Message> sent = new ArrayList<>();
+        List<TransportChannel> blocked = new ArrayList<>();
+        for (TelemetrySpool.Message message : batch) {
+            TransportChannel channel = cellTransport(message.channel);
+            if (blocked.contains(channel)) {
+                continue;
+            }
+            if (!channel.isOpen() || channel.queueSize() > SPOOL_REPLAY_MAX_QUEUE_BYTES
+                    || !sendCellMessage(message.channel, message.text)) {
+                blocked.add(channel);
+                continue;
+            }
+            sent.add(message);
+        }
+        if (!sent.isEmpty()) {
+            spool.remove(sent);
+            Log.d("WebSocketService", "Replayed " + sent.size() + " spooled messages, " + spool.getPendingCount() + " left");
+        }
+        if (!blocked.isEmpty()) {
+            scheduleSpoolReplay(SPOOL_REPLAY_RETRY_MS);
+        } else if (batch.size() == SPOOL_REPLAY_BATCH) {
+            scheduleSpoolReplay(0);
         }
     }
 
+    // Channel carrying camera frames: the multiplexed socket when it is open, else /ws/image.
+    private TransportChannel imageTransport() {
+        return muxChannel.isOpen() ? muxChannel : imageChannel;
+    }
+
+    // Runs on the camera analyzer thread: copies the planes into a pooled buffer and hands the
+    // frame to the encode stage, so the caller can close the ImageProxy straight away.
     public void sendCameraFrame(ImageProxy imageProxy) {
-        if (!Boolean.TRUE.equals(isStreaming.getValue()) || imageWebSocket == null) {
+        TransportChannel channel = imageTransport();
+        // Only peek at the rate budget here; the token is taken once the motion gate keeps the frame
+        if (!channel.isOpen() || !frameRateLimiter.canAcquire()) {
             return;
         }
 
         try {
-            Bitmap bitmap = imageProxyToBitmap(imageProxy);
-            String base64 = bitmapToBase64(bitmap);
-            imageWebSocket.send("data:image/jpeg;base64," + base64);
-            Log.d("WebSocketService", "Sent camera frame to /ws/image");
+            long queueBytes = channel.queueSize();
+            if (streamController.onSample(SystemClock.elapsedRealtime(), queueBytes, imageBytesEnqueued)) {
+                targetFrameIntervalMs.postValue(streamController.getFrameIntervalMs());
+                targetJpegQuality.postValue(streamController.getJpegQuality());
+                updateFrameRate();
+            }
+            if (queueBytes > MAX_IMAGE_QUEUE_BYTES) {
+                imageFramesDropped.increment();
+                Log.w("WebSocketService", "Dropping camera frame, " + queueBytes + " bytes still queued on /ws/image");
+                return;
+            }
+
+            ImageProxy.PlaneProxy luma = imageProxy.getPlanes()[0];
+            if (!motionGate.isSignificant(luma.getBuffer(), luma.getRowStride(), luma.getPixelStride(),
+                    imageProxy.getWidth(), imageProxy.getHeight(), SystemClock.elapsedRealtime())
+                    || !frameRateLimiter.tryAcquire()) {
+                return;
+            }
+
+            long start = System.nanoTime();
+            CapturedFrame frame = frameEncoder.capture(imageProxy, imageSequence++, System.currentTimeMillis(),
+                    motionGate.signature());
+            captureStats.recordLatency(System.nanoTime() - start);
+            imageCaptureLatency.recordSince(start);
+            encodeStage.offer(frame);
         } catch (Exception e) {
             errorMessage.postValue("Image error: " + e.getMessage());
             Log.e("WebSocketService", "Image error: " + e.getMessage());
         }
     }
 
-    private Bitmap imageProxyToBitmap(ImageProxy imageProxy) {
-        ImageProxy.PlaneProxy[] planes = imageProxy.getPlanes();
-        ByteBuffer yBuffer = planes[0].getBuffer();
-        ByteBuffer uBuffer = planes[1].getBuffer();
-        ByteBuffer vBuffer = planes[2].getBuffer();
+    // Encode stage thread.
+    private void encodeFrame(CapturedFrame frame) {
+        long start = System.nanoTime();
+        try {
+            int length = frameEncoder.compress(frame, streamController.getJpegQuality());
+            streamController.onFrameEncoded(length);
+            ImagePayload payload;
+            if (imageTransportMode == ImageTransportMode.BINARY) {
+                int codec = frame.colorMode == ImageColorMode.GRAYSCALE
+                        ? ImageFrameHeader.CODEC_JPEG_GRAYSCALE : ImageFrameHeader.CODEC_JPEG;
+                ImageFrameHeader header = new ImageFrameHeader(codec, frame.sequence, frame.captureTimeMs + getClockOffsetMs(),
+                        frame.width, frame.height, frame.rotationDegrees);
+                payload = ImagePayload.binary(header.toFrame(frameEncoder.getJpegBuffer(), length), frame.captureNanos,
+                        frame.motionSignature);
+            } else {
+                String message = "data:image/jpeg;base64," + Base64.encodeToString(frameEncoder.getJpegBuffer(), 0, length, Base64.NO_WRAP);
+                payload = ImagePayload.text(message, frame.captureNanos, frame.motionSignature);
+            }
+            imageEncodeLatency.recordSince(start);
+            sendStage.offer(payload);
+        } catch (Exception e) {
+            errorMessage.postValue("Image error: " + e.getMessage());
+            Log.e("WebSocketService", "Image error: " + e.getMessage());
+        } finally {
+            frameEncoder.release(frame);
+        }
+    }
 
-        int ySize = yBuffer.remaining();
-        int uSize = uBuffer.remaining();
-        int vSize = vBuffer.remaining();
+    // Bytes of cell messages the sockets have not written yet. On the shared mux socket the
+    // queue cannot be split by channel, so anything queued there counts: a frame then goes out
+    // only once the previous one is written, and a cell message waits behind at most one frame.
+    private long cellBacklogBytes(TransportChannel imageTransport) {
+        long backlog = data1Channel.queueSize() + data2Channel.queueSize();
+        return imageTransport == muxChannel ? backlog + muxChannel.queueSize() : backlog;
+    }
 
-        byte[] nv21 = new byte[ySize + uSize + vSize];
-        yBuffer.get(nv21, 0, ySize);
-        vBuffer.get(nv21, ySize, vSize);
-        uBuffer.get(nv21, ySize + vSize, uSize);
+    // Send stage thread. Frames wait here while cell traffic is queued or the image budget is
+    // spent; newer frames meanwhile replace older ones in the stage queue.
+    private void sendImagePayload(ImagePayload payload) {
+        TransportChannel channel = imageTransport();
+        long firstAttemptNanos = System.nanoTime();
+        long nowNanos = firstAttemptNanos;
+        while (true) {
+            SendScheduler.Decision decision = sendScheduler.admitImage(imageChannel.getName(), payload.size(),
+                    cellBacklogBytes(channel), firstAttemptNanos, nowNanos);
+            if (decision == SendScheduler.Decision.SEND) {
+                break;
+            }
+            if (decision == SendScheduler.Decision.DROP) {
+                return;
+            }
+            try {
+                Thread.sleep(IMAGE_DEFER_POLL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt(); // Shutting down
+                return;
+            }
+            channel = imageTransport();
+            nowNanos = System.nanoTime();
+        }
+        boolean queued;
+        if (channel == muxChannel) {
+            queued = channel.send(payload.isBinary()
+                    ? MuxCodec.encodeBinary(MuxCodec.CHANNEL_IMAGE, payload.getBinary())
+                    : MuxCodec.encodeText(MuxCodec.CHANNEL_IMAGE, payload.getText()));
+        } else {
+            queued = payload.isBinary() ? channel.send(payload.getBinary()) : channel.send(payload.getText());
+        }
+        if (queued) {
+            // Only a frame the server will see becomes the motion gate's reference
+            motionGate.markSent(payload.getMotionSignature(), SystemClock.elapsedRealtime());
+            imageBytesEnqueued += payload.size();
+            if (verboseLogging) {
+                Log.d("WebSocketService", "Sent camera frame to /ws/image (" + payload.size() + " bytes, "
+                        + (System.nanoTime() - payload.getCaptureNanos()) / 1000 + " us after capture)");
+            }
+        }
+    }
+
+    // Queue depth and processing latency of the capture, encode and send stages.
+    public StageStats[] getImagePipelineStats() {
+        return new StageStats[]{captureStats, encodeStage.getStats(), sendStage.getStats()};
+    }
 
-        YuvImage yuvImage = new YuvImage(nv21, ImageFormat.NV21, imageProxy.getWidth(), imageProxy.getHeight(), null);
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        yuvImage.compressToJpeg(new Rect(0, 0, yuvImage.getWidth(), yuvImage.getHeight()), 70, out);
-        byte[] imageBytes = out.toByteArray();
-        return BitmapFactory.decodeByteArray(imageBytes, 0, imageBytes.length);
+    // Switches between colour and luma-only frames while streaming.
+    public void setImageColorMode(ImageColorMode mode) {
+        frameEncoder.setColorMode(mode);
     }
 
-    private String bitmapToBase64(Bitmap bitmap) {
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        bitmap.compress(Bitmap.CompressFormat.JPEG, 70, outputStream);
-        return Base64.encodeToString(outputStream.toByteArray(), Base64.DEFAULT);
+    public ImageColorMode getImageColorMode() {
+        return frameEncoder.getColorMode();
+    }
+
+    // Region of interest and output size for streamed frames; takes effect without rebinding the camera.
+    public void setFrameTransform(FrameTransform transform) {
+        frameEncoder.setTransform(transform);
+    }
+
+    // Near-duplicate frame suppression settings and captured/suppressed/sent counters.
+    public MotionGate getMotionGate() {
+        return motionGate;
+    }
+
+    public FrameEncoder getFrameEncoder() {
+        return frameEncoder;
     }
 
     public void shutdown() {
         disconnect();
+        encodeStage.shutdown();
+        sendStage.shutdown();
+        scheduler.shutdownNow();
+        TelemetrySpool spool = telemetrySpool;
+        if (spool != null) {
+            try {
+                spool.close();
+            } catch (IOException e) {
+                Log.e("WebSocketService", "Could not close offline spool: " + e.getMessage());
+            }
+        }
         client.dispatcher().executorService().shutdown();
     }
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package com.example.myapplication.ui.dashboard;
 
+import android.os.Build;
 import android.os.Bundle;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -10,15 +12,39 @@ import android.widget.TextView;
 import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.fragment.app.Fragment;
+import java.io.File;
+import java.io.IOException;
+import com.example.myapplication.camera.ImageColorMode;
 import com.example.myapplication.databinding.FragmentDashboardBinding;
+import com.example.myapplication.sampling.CellSamplingEngine;
+import com.example.myapplication.sampling.CollectionMode;
+import com.example.myapplication.services.ImageTransportMode;
+import com.example.myapplication.services.TransportMode;
 import com.example.myapplication.services.WebSocketService;
+import com.google.android.material.switchmaterial.SwitchMaterial;
 
 public class DashboardFragment extends Fragment {
 
     private FragmentDashboardBinding binding;
     private EditText serverAddressInput, portInput;
     private Button startButton;
+    private SwitchMaterial binaryImageSwitch;
+    private SwitchMaterial grayscaleImageSwitch;
+    private SwitchMaterial multiplexSwitch;
+    private SwitchMaterial batchCellSwitch;
+    private SwitchMaterial compressCellSwitch;
+    private SwitchMaterial deltaCellSwitch;
+    private SwitchMaterial binaryCellSwitch;
+    private SwitchMaterial verboseLogSwitch;
+    private SwitchMaterial imageBudgetSwitch;
+    private SwitchMaterial strictCellSwitch;
+    private SwitchMaterial eventCellSwitch;
+    private SwitchMaterial adaptiveScanSwitch;
+    private Button dumpMetricsButton;
     private TextView statusText;
+    private TextView transportStatsText;
+    private TextView samplingRateText;
+    private TextView metricsText;
     private WebSocketService webSocketService;
 
     @Override
@@ -31,21 +57,50 @@ public class DashboardFragment extends Fragment {
         portInput = binding.portInput;
         startButton = binding.btnStart;
         statusText = binding.statusText;
+        transportStatsText = binding.transportStatsText;
+        samplingRateText = binding.samplingRateText;
+        metricsText = binding.metricsText;
+        dumpMetricsButton = binding.btnDumpMetrics;
+        binaryImageSwitch = binding.binaryImageSwitch;
+        grayscaleImageSwitch = binding.grayscaleImageSwitch;
+        multiplexSwitch = binding.multiplexSwitch;
+        batchCellSwitch = binding.batchCellSwitch;
+        compressCellSwitch = binding.compressCellSwitch;
+        deltaCellSwitch = binding.deltaCellSwitch;
+        binaryCellSwitch = binding.binaryCellSwitch;
+        verboseLogSwitch = binding.verboseLogSwitch;
+        imageBudgetSwitch = binding.imageBudgetSwitch;
+        strictCellSwitch = binding.strictCellSwitch;
+        eventCellSwitch = binding.eventCellSwitch;
+        adaptiveScanSwitch = binding.adaptiveScanSwitch;
         webSocketService = WebSocketService.getInstance();
 
         setupObservers();
         setupButtonListener();
+        setupSwitches();
 
         return root;
     }
 
     private void setupObservers() {
-        webSocketService.getIsStreaming().observe(getViewLifecycleOwner(), isStreaming -> {
-            startButton.setText(isStreaming ? "STOP STREAMING" : "START STREAMING");
+        webSocketService.getSessionActive().observe(getViewLifecycleOwner(), active -> {
+            startButton.setText(active ? "STOP STREAMING" : "START STREAMING");
         });
 
         webSocketService.getConnectionStatus().observe(getViewLifecycleOwner(), statusText::setText);
 
+        webSocketService.getTransportStats().observe(getViewLifecycleOwner(), stats -> {
+            transportStatsText.setText(stats.toString());
+        });
+
+        webSocketService.getMetrics().observe(getViewLifecycleOwner(), metrics -> {
+            metricsText.setText(metrics.toString());
+        });
+
+        CellSamplingEngine.getInstance().getSamplingRate().observe(getViewLifecycleOwner(), rate -> {
+            samplingRateText.setText(rate.toString());
+        });
+
         webSocketService.getErrorMessage().observe(getViewLifecycleOwner(), error -> {
             if (error != null && !error.isEmpty()) {
                 Toast.makeText(requireContext(), error, Toast.LENGTH_SHORT).show();
@@ -58,7 +113,7 @@ public class DashboardFragment extends Fragment {
             String serverAddress = serverAddressInput.getText().toString().trim();
             String port = portInput.getText().toString().trim();
 
-            if (webSocketService.getIsStreaming().getValue() != null && webSocketService.getIsStreaming().getValue()) {
+            if (Boolean.TRUE.equals(webSocketService.getSessionActive().getValue())) {
                 webSocketService.disconnect();
             } else {
                 if (serverAddress.isEmpty() || port.isEmpty()) {
@@ -68,6 +123,72 @@ public class DashboardFragment extends Fragment {
                 webSocketService.connect(serverAddress, port);
             }
         });
+
+        dumpMetricsButton.setOnClickListener(v -> {
+            File dir = requireContext().getExternalFilesDir(null);
+            File file = new File(dir != null ? dir : requireContext().getFilesDir(), "metrics.txt");
+            new Thread(() -> {
+                try {
+                    webSocketService.dumpMetrics(file);
+                    Log.d("DashboardFragment", "Metrics written to " + file);
+                } catch (IOException e) {
+                    Log.e("DashboardFragment", "Metrics dump failed: " + e.getMessage());
+                }
+            }).start();
+            Toast.makeText(requireContext(), "Metrics appended to " + file.getName(), Toast.LENGTH_SHORT).show();
+        });
+    }
+
+    private void setupSwitches() {
+        binaryImageSwitch.setChecked(webSocketService.getImageTransportMode() == ImageTransportMode.BINARY);
+        binaryImageSwitch.setOnCheckedChangeListener((buttonView, isChecked) ->
+                webSocketService.setImageTransportMode(isChecked ? ImageTransportMode.BINARY : ImageTransportMode.TEXT));
+
+        grayscaleImageSwitch.setChecked(webSocketService.getImageColorMode() == ImageColorMode.GRAYSCALE);
+        grayscaleImageSwitch.setOnCheckedChangeListener((buttonView, isChecked) ->
+                webSocketService.setImageColorMode(isChecked ? ImageColorMode.GRAYSCALE : ImageColorMode.COLOR));
+
+        multiplexSwitch.setChecked(webSocketService.getTransportMode() == TransportMode.MULTIPLEXED);
+        multiplexSwitch.setOnCheckedChangeListener((buttonView, isChecked) ->
+                webSocketService.setTransportMode(isChecked ? TransportMode.MULTIPLEXED : TransportMode.SEPARATE));
+
+        batchCellSwitch.setChecked(webSocketService.isCellBatchingEnabled());
+        batchCellSwitch.setOnCheckedChangeListener((buttonView, isChecked) ->
+                webSocketService.setCellBatching(isChecked ? 5000 : 0, 20));
+
+        compressCellSwitch.setChecked(webSocketService.isCellCompressionRequested());
+        compressCellSwitch.setOnCheckedChangeListener((buttonView, isChecked) ->
+                webSocketService.setCellCompression(isChecked));
+
+        deltaCellSwitch.setChecked(webSocketService.isCellDeltaEncodingEnabled());
+        deltaCellSwitch.setOnCheckedChangeListener((buttonView, isChecked) ->
+                webSocketService.setCellDeltaEncoding(isChecked));
+
+        binaryCellSwitch.setChecked(webSocketService.isBinaryCellFormatRequested());
+        binaryCellSwitch.setOnCheckedChangeListener((buttonView, isChecked) ->
+                webSocketService.setBinaryCellFormat(isChecked));
+
+        verboseLogSwitch.setChecked(webSocketService.isVerboseLogging());
+        verboseLogSwitch.setOnCheckedChangeListener((buttonView, isChecked) ->
+                webSocketService.setVerboseLogging(isChecked));
+
+        imageBudgetSwitch.setChecked(webSocketService.getChannelBudget("image") > 0);
+        imageBudgetSwitch.setOnCheckedChangeListener((buttonView, isChecked) ->
+                webSocketService.setChannelBudget("image", isChecked ? 256 * 1024 : 0));
+
+        strictCellSwitch.setChecked(webSocketService.isStrictCellDelivery());
+        strictCellSwitch.setOnCheckedChangeListener((buttonView, isChecked) ->
+                webSocketService.setStrictCellDelivery(isChecked));
+
+        CellSamplingEngine samplingEngine = CellSamplingEngine.getInstance();
+        eventCellSwitch.setEnabled(Build.VERSION.SDK_INT >= Build.VERSION_CODES.S);
+        eventCellSwitch.setChecked(samplingEngine.getCollectionMode() == CollectionMode.EVENTS);
+        eventCellSwitch.setOnCheckedChangeListener((buttonView, isChecked) ->
+                samplingEngine.setCollectionMode(isChecked ? CollectionMode.EVENTS : CollectionMode.POLLING));
+
+        adaptiveScanSwitch.setChecked(samplingEngine.isAdaptiveSampling());
+        adaptiveScanSwitch.setOnCheckedChangeListener((buttonView, isChecked) ->
+                samplingEngine.setAdaptiveSampling(isChecked));
     }
 
     @Override
@@ -5,8 +5,6 @@ import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.net.Uri;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
 import android.provider.Settings;
 import android.util.Log;
 import android.view.LayoutInflater;
@@ -29,6 +27,7 @@ import androidx.camera.view.PreviewView;
 
 import com.example.myapplication.services.WebSocketService;
 import com.google.common.util.concurrent.ListenableFuture;
+import java.util.Locale;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -38,21 +37,11 @@ public class NotificationsFragment extends Fragment {
     private PreviewView previewView;
     private Button startButton;
     private TextView statusText;
+    private TextView streamTargetsText;
     private ExecutorService cameraExecutor;
     private ProcessCameraProvider cameraProvider;
     private WebSocketService webSocketService;
     private static final int CAMERA_REQUEST_CODE = 101;
-    private final Handler handler = new Handler(Looper.getMainLooper());
-    private boolean isFrameSending = false;
-    private static final long FRAME_INTERVAL_MS = 1000;
-
-    private final Runnable frameSendRunnable = new Runnable() {
-        @Override
-        public void run() {
-            isFrameSending = false;
-            handler.postDelayed(this, FRAME_INTERVAL_MS);
-        }
-    };
 
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater,
@@ -64,6 +53,7 @@ public class NotificationsFragment extends Fragment {
         previewView = binding.previewView;
         startButton = binding.btnStart;
         statusText = binding.statusText; // Add this if statusText is in layout
+        streamTargetsText = binding.streamTargetsText;
         cameraExecutor = Executors.newSingleThreadExecutor();
         webSocketService = WebSocketService.getInstance();
 
@@ -93,6 +83,17 @@ public class NotificationsFragment extends Fragment {
                 Log.e("NotificationsFragment", "Error: " + error);
             }
         });
+
+        webSocketService.getTargetFrameIntervalMs().observe(getViewLifecycleOwner(), interval -> updateStreamTargets());
+        webSocketService.getTargetJpegQuality().observe(getViewLifecycleOwner(), quality -> updateStreamTargets());
+    }
+
+    private void updateStreamTargets() {
+        Long interval = webSocketService.getTargetFrameIntervalMs().getValue();
+        Integer quality = webSocketService.getTargetJpegQuality().getValue();
+        if (streamTargetsText != null && interval != null && quality != null) {
+            streamTargetsText.setText(String.format(Locale.US, "%.1f fps, quality %d", 1000.0 / interval, quality));
+        }
     }
 
     private void setupButtonListener() {
@@ -137,12 +138,9 @@ public class NotificationsFragment extends Fragment {
                         .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST)
                         .build();
 
+                // Frame pacing is handled by WebSocketService's rate limiter
                 imageAnalysis.setAnalyzer(cameraExecutor, imageProxy -> {
-                    if (webSocketService.getIsStreaming().getValue() != null && webSocketService.getIsStreaming().getValue() && !isFrameSending) {
-                        isFrameSending = true;
-                        Log.d("Camera", "Sending frame to WebSocketService");
-                        webSocketService.sendCameraFrame(imageProxy);
-                    }
+                    webSocketService.sendCameraFrame(imageProxy);
                     imageProxy.close();
                 });
                 Log.d("Camera", "ImageAnalysis set");
@@ -179,7 +177,6 @@ public class NotificationsFragment extends Fragment {
             Log.d("Permissions", "Starting camera in onResume");
             startCamera();
         }
-        handler.post(frameSendRunnable);
     }
 
     @Override
@@ -189,7 +186,6 @@ public class NotificationsFragment extends Fragment {
         if (cameraProvider != null) {
             cameraProvider.unbindAll();
         }
-        handler.removeCallbacks(frameSendRunnable);
     }
 
     @Override
@@ -202,7 +198,6 @@ public class NotificationsFragment extends Fragment {
         if (cameraProvider != null) {
             cameraProvider.unbindAll();
         }
-        handler.removeCallbacks(frameSendRunnable);
         binding = null;
     }
 
@@ -0,0 +1,81 @@
+package com.example.myapplication.camera;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class MotionGateTest {
+    private static final int WIDTH = 64;
+    private static final int HEIGHT = 48;
+
+    private static ByteBuffer frame(int luma) {
+        byte[] data = new byte[WIDTH * HEIGHT];
+        Arrays.fill(data, (byte) luma);
+        return ByteBuffer.wrap(data);
+    }
+
+    private static boolean offer(MotionGate gate, ByteBuffer frame, long nowMs) {
+        boolean significant = gate.isSignificant(frame, WIDTH, 1, WIDTH, HEIGHT, nowMs);
+        if (significant) {
+            gate.markSent(nowMs);
+        }
+        return significant;
+    }
+
+    @Test
+    public void staticScene_isSuppressedUntilKeyframe() {
+        MotionGate gate = new MotionGate();
+        gate.setKeyframeIntervalMs(5000);
+
+        assertTrue(offer(gate, frame(100), 0));
+        assertFalse(offer(gate, frame(101), 1000));
+        assertFalse(offer(gate, frame(100), 2000));
+        assertTrue(offer(gate, frame(100), 5000));
+
+        assertEquals(4, gate.getFramesCaptured());
+        assertEquals(2, gate.getFramesSuppressed());
+        assertEquals(2, gate.getFramesSent());
+    }
+
+    @Test
+    public void changedScene_passes() {
+        MotionGate gate = new MotionGate();
+        assertTrue(offer(gate, frame(100), 0));
+
+        ByteBuffer moved = frame(100);
+        for (int i = 0; i < WIDTH * HEIGHT / 2; i++) {
+            moved.put(i, (byte) 200);
+        }
+        assertTrue(offer(gate, moved, 1000));
+        assertEquals(0, gate.getFramesSuppressed());
+    }
+
+    @Test
+    public void unsentFrame_doesNotBecomeReference() {
+        MotionGate gate = new MotionGate();
+        assertTrue(offer(gate, frame(100), 0));
+
+        // Passes the gate but is dropped before reaching the socket
+        assertTrue(gate.isSignificant(frame(200), WIDTH, 1, WIDTH, HEIGHT, 1000));
+
+        assertFalse(gate.isSignificant(frame(100), WIDTH, 1, WIDTH, HEIGHT, 2000));
+        assertTrue(gate.isSignificant(frame(200), WIDTH, 1, WIDTH, HEIGHT, 3000));
+        int[] sent = gate.signature();
+        // A later frame is checked before the earlier one reaches the socket
+        assertFalse(gate.isSignificant(frame(100), WIDTH, 1, WIDTH, HEIGHT, 4000));
+        gate.markSent(sent, 4000);
+        assertFalse(gate.isSignificant(frame(200), WIDTH, 1, WIDTH, HEIGHT, 5000));
+        assertEquals(2, gate.getFramesSent());
+    }
+
+    @Test
+    public void disabledGate_passesEverything() {
+        MotionGate gate = new MotionGate();
+        gate.setEnabled(false);
+        assertTrue(offer(gate, frame(100), 0));
+        assertTrue(offer(gate, frame(100), 10));
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.myapplication.camera;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class Yuv420ConverterTest {
+    private static final int WIDTH = 6;
+    private static final int HEIGHT = 4;
+
+    private static byte y(int row, int col) {
+        return (byte) (row * 16 + col);
+    }
+
+    private static byte u(int row, int col) {
+        return (byte) (100 + row * 8 + col);
+    }
+
+    private static byte v(int row, int col) {
+        return (byte) (200 + row * 8 + col);
+    }
+
+    private static byte[] expectedNv21() {
+        byte[] expected = new byte[Yuv420Converter.nv21Size(WIDTH, HEIGHT)];
+        int o = 0;
+        for (int row = 0; row < HEIGHT; row++) {
+            for (int col = 0; col < WIDTH; col++) {
+                expected[o++] = y(row, col);
+            }
+        }
+        for (int row = 0; row < HEIGHT / 2; row++) {
+            for (int col = 0; col < WIDTH / 2; col++) {
+                expected[o++] = v(row, col);
+                expected[o++] = u(row, col);
+            }
+        }
+        return expected;
+    }
+
+    private static ByteBuffer lumaPlane(int rowStride) {
+        byte[] data = new byte[rowStride * (HEIGHT - 1) + WIDTH];
+        for (int row = 0; row < HEIGHT; row++) {
+            for (int col = 0; col < WIDTH; col++) {
+                data[row * rowStride + col] = y(row, col);
+            }
+        }
+        return ByteBuffer.wrap(data);
+    }
+
+    @Test
+    public void planarWithPaddedRows() {
+        int yRowStride = WIDTH + 10;
+        int uvRowStride = WIDTH / 2 + 5;
+        byte[] uData = new byte[uvRowStride * (HEIGHT / 2 - 1) + WIDTH / 2];
+        byte[] vData = new byte[uData.length];
+        for (int row = 0; row < HEIGHT / 2; row++) {
+            for (int col = 0; col < WIDTH / 2; col++) {
+                uData[row * uvRowStride + col] = u(row, col);
+                vData[row * uvRowStride + col] = v(row, col);
+            }
+        }
+
+        byte[] out = new byte[Yuv420Converter.nv21Size(WIDTH, HEIGHT)];
+        ByteBuffer yPlane = lumaPlane(yRowStride);
+        new Yuv420Converter().toNv21(yPlane, yRowStride, 1,
+                ByteBuffer.wrap(uData), ByteBuffer.wrap(vData), uvRowStride, 1, WIDTH, HEIGHT, out);
+
+        assertArrayEquals(expectedNv21(), out);
+        assertEquals(0, yPlane.position());
+    }
+
+    @Test
+    public void interleavedVuFastPath() {
+        assertInterleaved(WIDTH, WIDTH);
+    }
+
+    @Test
+    public void interleavedVuWithPaddedRows() {
+        assertInterleaved(WIDTH + 8, WIDTH + 8);
+    }
+
+    @Test
+    public void interleavedVuInReadOnlyBuffersIsDetectedWithoutWriting() {
+        byte[] vu = interleavedVu(WIDTH);
+        ByteBuffer vPlane = ByteBuffer.wrap(vu, 0, vu.length - 1).slice().asReadOnlyBuffer();
+        ByteBuffer uPlane = ByteBuffer.wrap(vu, 1, vu.length - 1).slice().asReadOnlyBuffer();
+        byte[] before = vu.clone();
+
+        byte[] out = new byte[Yuv420Converter.nv21Size(WIDTH, HEIGHT)];
+        new Yuv420Converter().toNv21(lumaPlane(WIDTH), WIDTH, 1, uPlane, vPlane, WIDTH, 2, WIDTH, HEIGHT, out);
+
+        assertArrayEquals(expectedNv21(), out);
+        assertArrayEquals(before, vu);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void vPlaneEndingAtLastSampleIndexIsNotBulkCopied() {
+        byte[] vu = interleavedVu(WIDTH);
+        int lastIndex = WIDTH * (HEIGHT / 2 - 1) + WIDTH - 2;
+        // One byte short: the last V sample sits at lastIndex, which the buffer no longer holds
+        ByteBuffer vPlane = ByteBuffer.wrap(vu, 0, lastIndex).slice().asReadOnlyBuffer();
+        ByteBuffer uPlane = ByteBuffer.wrap(vu, 1, vu.length - 1).slice().asReadOnlyBuffer();
+
+        // Rejected by the bounds check, then the per-sample path reports the missing byte
+        // instead of the bulk copy underflowing
+        byte[] out = new byte[Yuv420Converter.nv21Size(WIDTH, HEIGHT)];
+        new Yuv420Converter().toNv21(lumaPlane(WIDTH), WIDTH, 1, uPlane, vPlane, WIDTH, 2, WIDTH, HEIGHT, out);
+    }
+
+    @Test
+    public void semiPlanarWithoutAliasingUsesGenericPath() {
+        int uvRowStride = WIDTH;
+        byte[] uData = new byte[uvRowStride * (HEIGHT / 2 - 1) + WIDTH - 1];
+        byte[] vData = new byte[uData.length];
+        for (int row = 0; row < HEIGHT / 2; row++) {
+            for (int col = 0; col < WIDTH / 2; col++) {
+                uData[row * uvRowStride + col * 2] = u(row, col);
+                vData[row * uvRowStride + col * 2] = v(row, col);
+            }
+        }
+
+        byte[] out = new byte[Yuv420Converter.nv21Size(WIDTH, HEIGHT)];
+        new Yuv420Converter().toNv21(lumaPlane(WIDTH), WIDTH, 1,
+                ByteBuffer.wrap(uData), ByteBuffer.wrap(vData), uvRowStride, 2, WIDTH, HEIGHT, out);
+
+        assertArrayEquals(expectedNv21(), out);
+    }
+
+    // Builds one VU-interleaved block and exposes it as overlapping U and V views,
+    // the way CameraX hands out NV21-backed YUV_420_888 images.
+    private void assertInterleaved(int yRowStride, int uvRowStride) {
+        byte[] vu = interleavedVu(uvRowStride);
+        ByteBuffer vPlane = ByteBuffer.wrap(vu, 0, vu.length - 1).slice();
+        ByteBuffer uPlane = ByteBuffer.wrap(vu, 1, vu.length - 1).slice();
+
+        byte[] out = new byte[Yuv420Converter.nv21Size(WIDTH, HEIGHT)];
+        new Yuv420Converter().toNv21(lumaPlane(yRowStride), yRowStride, 1,
+                uPlane, vPlane, uvRowStride, 2, WIDTH, HEIGHT, out);
+
+        assertArrayEquals(expectedNv21(), out);
+        assertEquals(0, vPlane.position());
+    }
+
+    private byte[] interleavedVu(int uvRowStride) {
+        byte[] vu = new byte[uvRowStride * (HEIGHT / 2 - 1) + WIDTH];
+        for (int row = 0; row < HEIGHT / 2; row++) {
+            for (int col = 0; col < WIDTH / 2; col++) {
+                vu[row * uvRowStride + col * 2] = v(row, col);
+                vu[row * uvRowStride + col * 2 + 1] = u(row, col);
+            }
+        }
+        return vu;
+    }
+
+    @Test
+    public void cropAndDownscale_samplesTheRegion() {
+        // Crop the right 4x4 block of the 6x4 frame and halve it to 2x2.
+        FrameGeometry geometry = new FrameGeometry();
+        geometry.cropLeft = 2;
+        geometry.cropTop = 0;
+        geometry.cropWidth = 4;
+        geometry.cropHeight = 4;
+        geometry.outputWidth = 2;
+        geometry.outputHeight = 2;
+
+        int uvRowStride = WIDTH / 2;
+        byte[] uData = new byte[uvRowStride * HEIGHT / 2];
+        byte[] vData = new byte[uData.length];
+        for (int row = 0; row < HEIGHT / 2; row++) {
+            for (int col = 0; col < WIDTH / 2; col++) {
+                uData[row * uvRowStride + col] = u(row, col);
+                vData[row * uvRowStride + col] = v(row, col);
+            }
+        }
+
+        byte[] out = new byte[Yuv420Converter.nv21Size(2, 2)];
+        new Yuv420Converter().toNv21(lumaPlane(WIDTH), WIDTH, 1,
+                ByteBuffer.wrap(uData), ByteBuffer.wrap(vData), uvRowStride, 1, WIDTH, HEIGHT, geometry, out);
+
+        assertArrayEquals(new byte[]{y(0, 2), y(0, 4), y(2, 2), y(2, 4), v(0, 1), u(0, 1)}, out);
+    }
+
+    @Test
+    public void lumaOnly_fillsNeutralChroma() {
+        FrameGeometry geometry = new FrameGeometry();
+        FrameTransform.NONE.apply(WIDTH, HEIGHT, geometry);
+
+        byte[] out = new byte[Yuv420Converter.nv21Size(WIDTH, HEIGHT)];
+        new Yuv420Converter().lumaToNv21(lumaPlane(WIDTH + 2), WIDTH + 2, 1, WIDTH, HEIGHT, geometry, out);
+
+        byte[] expected = expectedNv21();
+        Arrays.fill(expected, WIDTH * HEIGHT, expected.length, (byte) 128);
+        assertArrayEquals(expected, out);
+    }
+
+    @Test
+    public void transform_keepsRegionEvenAndAspectRatio() {
+        FrameGeometry geometry = new FrameGeometry();
+        FrameTransform.scaledTo(320, 0).withRegionOfInterest(0.25f, 0.25f, 0.75f, 0.75f).apply(1280, 720, geometry);
+        assertEquals(320, geometry.cropLeft);
+        assertEquals(180 & ~1, geometry.cropTop);
+        assertEquals(640, geometry.cropWidth);
+        assertEquals(360, geometry.cropHeight);
+        assertEquals(320, geometry.outputWidth);
+        assertEquals(180, geometry.outputHeight);
+
+        FrameTransform.NONE.apply(640, 480, geometry);
+        assertTrue(geometry.isIdentity(640, 480));
+    }
+
+    @Test
+    public void pool_reusesBuffersOfTheSameSize() {
+        ByteArrayPool pool = new ByteArrayPool(2);
+        byte[] first = pool.acquire(64);
+        pool.release(first);
+        assertSame(first, pool.acquire(64));
+        pool.release(first);
+        assertNotSame(first, pool.acquire(128));
+        assertEquals(0, pool.getPooledCount());
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.myapplication.cell;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+// Round-trips reports through the binary format and compares its size against the org.json path
+// the fragments used before.
+public class CellBinaryCodecTest {
+    private static final long SCAN_TIME_MS = 1700000000000L;
+
+    private static PrimaryCellReport primary(int rsrp) {
+        return new PrimaryCellReport(SCAN_TIME_MS, 2, Arrays.asList(
+                new SimCellReport(1, "T-Mobile", "310", "260",
+                        CellMeasurement.lte(null, null, null, 318, 12043, 25618433, 66786, rsrp, -11)),
+                new SimCellReport(2, "Verizon", "311", "480",
+                        CellMeasurement.nr(null, null, null, 402, 7426, 8452349953L, -88, -10))));
+    }
+
+    private static NeighborCellReport neighbors() {
+        return new NeighborCellReport(SCAN_TIME_MS, Arrays.asList(
+                CellMeasurement.lte("T-Mobile", "310", "260", 112, 12043, 25618434, 66786, -106, -15),
+                CellMeasurement.lte("Unknown Carrier", "N/A", "N/A", 97, CellMeasurement.UNAVAILABLE,
+                        CellMeasurement.UNAVAILABLE, 66786, -110, -17),
+                CellMeasurement.gsm("Vodafone \"DE\"", "262", "02", 40411, 21733, -95),
+                CellMeasurement.wcdma("Vodafone \"DE\"", "262", "02", 40411, 5310228, -89),
+                CellMeasurement.unknown("Unknown Carrier")));
+    }
+
+    // The JSON the fragments built with org.json before the binary format existed.
+    private static String orgJson(NeighborCellReport report) throws Exception {
+        JSONObject json = new JSONObject();
+        json.put("type", "neighboring_cells");
+        json.put("timestamp", report.timestampMs);
+        JSONArray cells = new JSONArray();
+        for (CellMeasurement cell : report.neighbors) {
+            JSONObject cellData = new JSONObject();
+            cellData.put("network", cell.radioType.getJsonName());
+            cellData.put("carrier", cell.carrier);
+            if (cell.radioType == RadioType.LTE) {
+                cellData.put("pci", cell.pci);
+                cellData.put("tac", cell.tac);
+                cellData.put("ci", cell.ci);
+                cellData.put("band", cell.band);
+                cellData.put("rsrp", cell.rsrp);
+                cellData.put("rsrq", cell.rsrq);
+            } else if (cell.radioType == RadioType.GSM || cell.radioType == RadioType.WCDMA) {
+                cellData.put("lac", cell.lac);
+                cellData.put("cid", cell.cid);
+                cellData.put("rssi", cell.rssi);
+            }
+            cellData.put("mcc", cell.mcc);
+            cellData.put("mnc", cell.mnc);
+            cells.put(cellData);
+        }
+        json.put("neighbors", cells);
+        json.put("neighbor_count", report.neighbors.size());
+        return json.toString();
+    }
+
+    private static void assertSameCell(CellMeasurement expected, CellMeasurement actual) {
+        assertEquals(CellJsonWriter.write(new NeighborCellReport(SCAN_TIME_MS, Arrays.asList(expected)), 0),
+                CellJsonWriter.write(new NeighborCellReport(SCAN_TIME_MS, Arrays.asList(actual)), 0));
+    }
+
+    @Test
+    public void roundTripsBothMessageKinds() {
+        CellBinaryEncoder encoder = new CellBinaryEncoder();
+        CellBinaryDecoder decoder = new CellBinaryDecoder();
+
+        PrimaryCellReport decodedPrimary = (PrimaryCellReport) decoder.decode(encoder.encode(primary(-97), 0));
+        assertEquals(CellJsonWriter.write(primary(-97), 0), CellJsonWriter.write(decodedPrimary, 0));
+
+        NeighborCellReport decodedNeighbors = (NeighborCellReport) decoder.decode(encoder.encode(neighbors(), 0));
+        assertEquals(5, decodedNeighbors.neighbors.size());
+        for (int i = 0; i < 5; i++) {
+            assertSameCell(neighbors().neighbors.get(i), decodedNeighbors.neighbors.get(i));
+        }
+        assertEquals(CellMeasurement.UNAVAILABLE, decodedNeighbors.neighbors.get(1).ci);
+    }
+
+    @Test
+    public void timestampIsShiftedToServerTime() throws Exception {
+        PrimaryCellReport decoded = (PrimaryCellReport) new CellBinaryDecoder().decode(
+                new CellBinaryEncoder().encode(primary(-97), -1234));
+        assertEquals(SCAN_TIME_MS - 1234, decoded.timestampMs);
+        assertEquals(SCAN_TIME_MS + 250, new JSONObject(CellJsonWriter.write(neighbors(), 250)).getLong("timestamp"));
+    }
+
+    @Test
+    public void stringTableShrinksLaterMessages() {
+        CellBinaryEncoder encoder = new CellBinaryEncoder();
+        CellBinaryDecoder decoder = new CellBinaryDecoder();
+        byte[] first = encoder.encode(primary(-97), 0);
+        byte[] second = encoder.encode(primary(-98), 0);
+        assertTrue(second.length < first.length - 20);
+
+        decoder.decode(first);
+        assertEquals(CellJsonWriter.write(primary(-98), 0), CellJsonWriter.write((PrimaryCellReport) decoder.decode(second), 0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsReferenceToUnseenString() {
+        CellBinaryEncoder encoder = new CellBinaryEncoder();
+        encoder.encode(primary(-97), 0);
+        new CellBinaryDecoder().decode(encoder.encode(primary(-98), 0)); // Decoder missed the first message
+    }
+
+    @Test
+    public void discardedMessageLeavesTableInSyncWithDecoder() {
+        CellBinaryEncoder encoder = new CellBinaryEncoder();
+        CellBinaryDecoder decoder = new CellBinaryDecoder();
+        encoder.encode(primary(-97), 0);
+        encoder.discardLast(); // Never sent
+
+        PrimaryCellReport decoded = (PrimaryCellReport) decoder.decode(encoder.encode(primary(-98), 0));
+        assertEquals(CellJsonWriter.write(primary(-98), 0), CellJsonWriter.write(decoded, 0));
+    }
+
+    @Test
+    public void jsonWriterMatchesOrgJson() throws Exception {
+        NeighborCellReport report = neighbors();
+        JSONObject expected = new JSONObject(orgJson(report));
+        JSONObject actual = new JSONObject(CellJsonWriter.write(report, 0));
+        assertEquals(expected.toString(), actual.toString());
+    }
+
+    @Test
+    public void unknownServingCellIsWrittenEmpty() throws Exception {
+        PrimaryCellReport report = new PrimaryCellReport(SCAN_TIME_MS, 1, Arrays.asList(
+                new SimCellReport(1, "T-Mobile", "310", "260", CellMeasurement.unknown(null))));
+        JSONObject sim = new JSONObject(CellJsonWriter.write(report, 0)).getJSONObject("sims").getJSONObject("sim_1");
+        assertEquals(0, sim.getJSONObject("cell").length());
+        assertEquals("Unknown", new JSONObject(CellJsonWriter.write(neighbors(), 0))
+                .getJSONArray("neighbors").getJSONObject(4).getString("network"));
+    }
+
+    @Test
+    public void binaryIsSmallerThanJson() throws Exception {
+        NeighborCellReport report = neighbors();
+        int jsonBytes = orgJson(report).getBytes(StandardCharsets.UTF_8).length;
+        CellBinaryEncoder encoder = new CellBinaryEncoder();
+
+        int first = encoder.encode(report, 0).length; // Strings sent inline
+        int repeated = encoder.encode(report, 0).length; // Strings from the table
+        assertTrue(first * 4 < jsonBytes);
+        assertTrue(repeated * 5 < jsonBytes);
+    }
+}
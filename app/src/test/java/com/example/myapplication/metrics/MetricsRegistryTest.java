@@ -0,0 +1,65 @@
+package com.example.myapplication.metrics;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class MetricsRegistryTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void histogramEstimatesPercentilesFromBuckets() {
+        LatencyHistogram histogram = new MetricsRegistry().histogram("encode");
+        for (int i = 0; i < 90; i++) {
+            histogram.record(80_000); // 80 us, in the 100 us bucket
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(3_000_000); // 3 ms, in the 5 ms bucket
+        }
+        HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(100, snapshot.getCount());
+        assertEquals(100, snapshot.getP50Micros());
+        assertEquals(100, snapshot.getP90Micros());
+        assertEquals(3000, snapshot.getP99Micros()); // Capped at the observed max
+        assertEquals(3000, snapshot.getMaxMicros());
+        assertEquals(372, snapshot.getMeanMicros());
+    }
+
+    @Test
+    public void overflowBucketReportsMax() {
+        LatencyHistogram histogram = new MetricsRegistry().histogram("scan");
+        histogram.record(9_000_000_000L);
+        assertEquals(9_000_000, histogram.snapshot().getP50Micros());
+    }
+
+    @Test
+    public void sameNameReturnsSameMetric() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("sent").increment();
+        registry.counter("sent").add(2);
+        registry.gauge("depth").set(7);
+        MetricsSnapshot snapshot = registry.snapshot();
+        assertEquals(3L, (long) snapshot.getCounters().get("sent"));
+        assertEquals(7L, (long) snapshot.getGauges().get("depth"));
+        assertSame(registry.histogram("send"), registry.histogram("send"));
+    }
+
+    @Test
+    public void dumpAppendsSnapshots() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.histogram("send.data1").record(40_000);
+        File file = folder.newFile("metrics.txt");
+        registry.dump(file);
+        registry.dump(file);
+        String text = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        assertEquals(4, text.split("===", -1).length - 1); // Two headers
+        assertTrue(text.contains("send.data1: n 1, mean 40 us, p50/p90/p99 40/40/40 us, max 40 us"));
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.myapplication.sampling;
+
+import com.example.myapplication.cell.CellMeasurement;
+import com.example.myapplication.cell.PrimaryCellReport;
+import com.example.myapplication.cell.SimCellReport;
+import java.util.Collections;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class AdaptiveScanIntervalTest {
+    private static final long MS = 1_000_000L;
+
+    private static PrimaryCellReport lte(int pci, int rsrp) {
+        CellMeasurement cell = CellMeasurement.lte(null, null, null, pci, 12043, 25618433, 66786, rsrp, -11);
+        return new PrimaryCellReport(0, 1, Collections.singletonList(
+                new SimCellReport(1, "T-Mobile", "310", "260", cell)));
+    }
+
+    @Test
+    public void handoverDropsToMinimum() {
+        AdaptiveScanInterval adaptive = new AdaptiveScanInterval(1000, 15_000, 3000);
+        assertFalse(adaptive.onScan(0, lte(318, -97)));
+        assertTrue(adaptive.onScan(3000 * MS, lte(97, -101)));
+        assertEquals(1000, adaptive.getIntervalMs());
+        assertTrue(adaptive.getRate().reason.startsWith("serving cell changed on SIM 1"));
+        assertEquals(1, adaptive.getRate().changes);
+    }
+
+    @Test
+    public void fastSignalChangeHalvesInterval() {
+        AdaptiveScanInterval adaptive = new AdaptiveScanInterval(1000, 15_000, 3000);
+        adaptive.onScan(0, lte(318, -90));
+        assertFalse(adaptive.onScan(3000 * MS, lte(318, -92))); // Within the noise
+        assertTrue(adaptive.onScan(6000 * MS, lte(318, -104))); // 10 dB over the noise in 3 s
+        assertEquals(1500, adaptive.getIntervalMs());
+        assertTrue(adaptive.getRate().reason.startsWith("signal changing"));
+    }
+
+    @Test
+    public void quietScansStretchIntervalUpToMaximum() {
+        AdaptiveScanInterval adaptive = new AdaptiveScanInterval(1000, 5000, 3000);
+        long now = 0;
+        adaptive.onScan(now, lte(318, -97));
+        for (int i = 0; i < 3; i++) {
+            now += adaptive.getIntervalMs() * MS;
+            adaptive.onScan(now, lte(318, i % 2 == 0 ? -98 : -97));
+        }
+        assertEquals(4500, adaptive.getIntervalMs());
+        for (int i = 0; i < 3; i++) {
+            now += adaptive.getIntervalMs() * MS;
+            adaptive.onScan(now, lte(318, -97));
+        }
+        assertEquals(5000, adaptive.getIntervalMs());
+        assertTrue(adaptive.getRate().reason.startsWith("signal stable"));
+    }
+
+    @Test
+    public void narrowedBoundsClampCurrentInterval() {
+        AdaptiveScanInterval adaptive = new AdaptiveScanInterval(1000, 15_000, 3000);
+        adaptive.setBounds(500, 2000);
+        assertEquals(2000, adaptive.getIntervalMs());
+        assertEquals("bounds changed to 500-2000 ms", adaptive.getRate().reason);
+    }
+}
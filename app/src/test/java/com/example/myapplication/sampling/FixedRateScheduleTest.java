@@ -0,0 +1,36 @@
+package com.example.myapplication.sampling;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FixedRateScheduleTest {
+    @Test
+    public void delaysCompensateForLateRunsWithoutDrift() {
+        FixedRateSchedule schedule = new FixedRateSchedule(1000, 0);
+        assertEquals(0, schedule.latenessNanos(0));
+        assertEquals(1000 - 130, schedule.advance(130)); // Scan took 130
+
+        assertEquals(40, schedule.latenessNanos(1040)); // Woke up 40 late
+        assertEquals(2000 - 1100, schedule.advance(1100));
+        assertEquals(0, schedule.latenessNanos(2000)); // Back on the grid
+        assertEquals(0, schedule.getSkippedCount());
+    }
+
+    @Test
+    public void overrunSkipsMissedSlots() {
+        FixedRateSchedule schedule = new FixedRateSchedule(1000, 0);
+        assertEquals(500, schedule.advance(2500)); // Slots at 1000 and 2000 missed
+        assertEquals(2, schedule.getSkippedCount());
+        assertEquals(0, schedule.latenessNanos(3000));
+    }
+
+    @Test
+    public void intervalChangeAppliesFromCurrentSlot() {
+        FixedRateSchedule schedule = new FixedRateSchedule(1000, 0);
+        schedule.advance(100);
+        schedule.setIntervalNanos(400); // Decided during the run at 1000
+        assertEquals(1400 - 1100, schedule.advance(1100));
+        assertEquals(0, schedule.getSkippedCount());
+    }
+}
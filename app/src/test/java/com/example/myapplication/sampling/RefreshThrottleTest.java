@@ -0,0 +1,41 @@
+package com.example.myapplication.sampling;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RefreshThrottleTest {
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void requestsAreRateLimitedPerSubscription() {
+        RefreshThrottle throttle = new RefreshThrottle(1000 * MS, 30_000 * MS);
+        assertTrue(throttle.tryRequest(1, 0));
+        assertFalse(throttle.tryRequest(1, 999 * MS));
+        assertTrue(throttle.tryRequest(2, 999 * MS));
+        assertTrue(throttle.tryRequest(1, 1000 * MS));
+    }
+
+    @Test
+    public void staleOnlyAfterQuietPeriod() {
+        RefreshThrottle throttle = new RefreshThrottle(1000 * MS, 30_000 * MS);
+        assertFalse(throttle.isStale(1, 0)); // Starts the clock
+        assertTrue(throttle.isStale(1, 30_000 * MS));
+
+        throttle.onData(1, 31_000 * MS);
+        assertFalse(throttle.isStale(1, 60_000 * MS));
+        assertTrue(throttle.isStale(1, 61_000 * MS));
+    }
+
+    @Test
+    public void recentDataOnlyWithinMinInterval() {
+        RefreshThrottle throttle = new RefreshThrottle(1000 * MS, 30_000 * MS);
+        assertFalse(throttle.isStale(1, 0));
+        assertFalse(throttle.hasRecentData(1, 0)); // A stale check is not data
+
+        throttle.onData(1, 5000 * MS);
+        assertTrue(throttle.hasRecentData(1, 5999 * MS));
+        assertFalse(throttle.hasRecentData(1, 6000 * MS));
+        assertFalse(throttle.hasRecentData(2, 5500 * MS));
+    }
+}
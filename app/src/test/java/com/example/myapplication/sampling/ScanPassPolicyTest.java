@@ -0,0 +1,56 @@
+package com.example.myapplication.sampling;
+
+import com.example.myapplication.metrics.MetricsRegistry;
+import java.util.function.Supplier;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ScanPassPolicyTest {
+    private static final long MS = 1_000_000L;
+    private static final long TTL = 2500 * MS;
+
+    private final MetricsRegistry metrics = new MetricsRegistry();
+    private final SnapshotCache<Long> cache = new SnapshotCache<>(TTL, metrics.counter("hits"), metrics.counter("misses"));
+    private final ScanPassPolicy<Long> passes = new ScanPassPolicy<>(cache);
+    private long now;
+    private final Supplier<Long> scan = () -> now; // A pass is identified by the time it was taken
+
+    @Test
+    public void neighborPassNeverOlderThanTtlWithLongPrimaryInterval() {
+        // Stable serving cell: the adaptive primary interval is at its 15 s maximum and the
+        // neighbor interval keeps its 5:3 ratio
+        long primaryInterval = 15_000 * MS;
+        long neighborInterval = 25_000 * MS;
+        long nextPrimary = 0;
+        long nextNeighbor = 4000 * MS; // Phase offset so neighbor reads land between primary scans
+        int neighborReads = 0;
+        while (now < 10 * 60_000 * MS) {
+            if (nextPrimary <= nextNeighbor) {
+                now = nextPrimary;
+                passes.forPrimary(now, scan);
+                nextPrimary += primaryInterval;
+            } else {
+                now = nextNeighbor;
+                long pass = passes.forNeighbors(now, scan);
+                assertTrue("neighbor pass " + (now - pass) / MS + " ms old", now - pass < TTL);
+                neighborReads++;
+                nextNeighbor += neighborInterval;
+            }
+        }
+        assertTrue(neighborReads > 20);
+    }
+
+    @Test
+    public void primaryReusesRecentNeighborPassButNeverResends() {
+        now = 0;
+        long neighborPass = passes.forNeighbors(now, scan);
+
+        now = 1000 * MS;
+        assertEquals(neighborPass, (long) passes.forPrimary(now, scan)); // Within the TTL
+        now = 2000 * MS;
+        assertEquals(2000 * MS, (long) passes.forPrimary(now, scan)); // Already sent, so scans
+        now = 6000 * MS;
+        assertEquals(6000 * MS, (long) passes.forPrimary(now, scan)); // Past the TTL
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.myapplication.sampling;
+
+import com.example.myapplication.metrics.MetricsRegistry;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SnapshotCacheTest {
+    private static final long MS = 1_000_000L;
+
+    private final MetricsRegistry metrics = new MetricsRegistry();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Supplier<String> loader = () -> "scan " + loads.incrementAndGet();
+
+    private SnapshotCache<String> cache(long ttlMs) {
+        return new SnapshotCache<>(ttlMs * MS, metrics.counter("hits"), metrics.counter("misses"));
+    }
+
+    @Test
+    public void readersWithinTtlShareOneLoad() {
+        SnapshotCache<String> cache = cache(2500);
+        assertNull(cache.peek());
+        assertEquals("scan 1", cache.get(0, loader));
+        assertEquals("scan 1", cache.get(2000 * MS, loader));
+        assertEquals("scan 1", cache.get(2499 * MS, loader));
+        assertEquals("scan 2", cache.get(2500 * MS, loader));
+        assertEquals(2, loads.get());
+        assertEquals(2L, (long) metrics.snapshot().getCounters().get("hits"));
+        assertEquals(2L, (long) metrics.snapshot().getCounters().get("misses"));
+    }
+
+    @Test
+    public void refreshIgnoresTtlAndRestartsIt() {
+        SnapshotCache<String> cache = cache(2500);
+        cache.get(0, loader);
+        assertEquals("scan 2", cache.refresh(1000 * MS, loader));
+        assertEquals("scan 2", cache.get(3000 * MS, loader));
+        assertEquals(2000 * MS, cache.getAgeNanos(3000 * MS));
+    }
+
+    @Test
+    public void zeroTtlAlwaysLoadsAndFailedLoadKeepsOldValue() {
+        SnapshotCache<String> cache = cache(0);
+        cache.get(0, loader);
+        cache.get(0, loader);
+        assertEquals(2, loads.get());
+
+        assertNull(cache.refresh(1, () -> null));
+        assertEquals("scan 2", cache.peek());
+    }
+}
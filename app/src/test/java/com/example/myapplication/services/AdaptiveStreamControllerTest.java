@@ -0,0 +1,46 @@
+package com.example.myapplication.services;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class AdaptiveStreamControllerTest {
+    private static final int FRAME_BYTES = 40_000;
+
+    @Test
+    public void growingQueue_backsOffWithinBounds() {
+        AdaptiveStreamController controller = new AdaptiveStreamController(250, 4000, 30, 85);
+        long enqueued = 0;
+        long queued = 0;
+        controller.onSample(0, queued, enqueued);
+        for (int i = 1; i <= 20; i++) {
+            controller.onFrameEncoded(FRAME_BYTES);
+            enqueued += FRAME_BYTES;
+            queued += FRAME_BYTES; // Nothing drains
+            controller.onSample(i * 1000L, queued, enqueued);
+        }
+        assertEquals(4000, controller.getFrameIntervalMs());
+        assertEquals(30, controller.getJpegQuality());
+    }
+
+    @Test
+    public void fastLink_recoversQualityThenFrameRate() {
+        AdaptiveStreamController controller = new AdaptiveStreamController(250, 4000, 30, 85);
+        long enqueued = 0;
+        controller.onSample(0, 0, enqueued);
+        for (int i = 1; i <= 60; i++) {
+            controller.onFrameEncoded(FRAME_BYTES);
+            enqueued += FRAME_BYTES;
+            controller.onSample(i * 1000L, 0, enqueued); // Everything drained
+        }
+        assertEquals(85, controller.getJpegQuality());
+        assertTrue(controller.getFrameIntervalMs() < 1000);
+        assertTrue(controller.getFrameIntervalMs() >= 250);
+        assertTrue(controller.getDrainRateBytesPerSec() > 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidBounds_rejected() {
+        new AdaptiveStreamController(1000, 500, 30, 85);
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.myapplication.services;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CellDeltaTest {
+
+    private static String primary(int rsrp) {
+        return "{\"type\":\"primary_cell\",\"sim_count\":1,\"sims\":{\"sim_1\":{\"sim_slot\":1,\"carrier\":\"T-Mobile\","
+                + "\"mcc\":\"310\",\"mnc\":\"260\",\"cell\":{\"network\":\"LTE\",\"pci\":318,\"tac\":12043,"
+                + "\"ci\":25618433,\"band\":66786,\"rsrp\":" + rsrp + ",\"rsrq\":-11}}}}";
+    }
+
+    private static String neighbors(String... cells) {
+        return "{\"type\":\"neighboring_cells\",\"neighbors\":[" + String.join(",", cells) + "],\"neighbor_count\":"
+                + cells.length + "}";
+    }
+
+    private static String lte(int pci, int rsrp) {
+        return "{\"network\":\"LTE\",\"carrier\":\"T-Mobile\",\"pci\":" + pci + ",\"tac\":12043,\"ci\":2147483647,"
+                + "\"band\":66786,\"rsrp\":" + rsrp + ",\"rsrq\":-15,\"mcc\":\"310\",\"mnc\":\"260\"}";
+    }
+
+    private static void assertSameJson(String expected, String actual) throws Exception {
+        assertEquals(new JSONObject(expected).toString(), new JSONObject(actual).toString());
+    }
+
+    @Test
+    public void deltasCarryOnlyChangedFields() throws Exception {
+        CellDeltaEncoder encoder = new CellDeltaEncoder(10);
+        CellDeltaDecoder decoder = new CellDeltaDecoder();
+
+        String first = encoder.encode(primary(-97));
+        assertEquals("keyframe", new JSONObject(first).getString("type"));
+        assertSameJson(primary(-97), decoder.decode(first));
+
+        String second = encoder.encode(primary(-99));
+        JSONObject delta = new JSONObject(second);
+        assertEquals("delta", delta.getString("type"));
+        assertEquals(1, delta.getInt("base"));
+        assertEquals("{\"sims\":{\"sim_1\":{\"cell\":{\"rsrp\":-99}}}}", delta.getJSONObject("patch").toString());
+        assertTrue(second.length() < primary(-99).length() * 2 / 3);
+        assertSameJson(primary(-99), decoder.decode(second));
+    }
+
+    @Test
+    public void neighborsArePatchedByCellKeyAcrossReorderAndRemoval() throws Exception {
+        CellDeltaEncoder encoder = new CellDeltaEncoder(10);
+        CellDeltaDecoder decoder = new CellDeltaDecoder();
+        String[] sequence = {
+                neighbors(lte(112, -106), lte(97, -110)),
+                neighbors(lte(97, -109), lte(112, -104)),
+                neighbors(lte(97, -111), lte(205, -115)),
+                neighbors(),
+        };
+        for (String message : sequence) {
+            assertSameJson(message, decoder.decode(encoder.encode(message)));
+        }
+        assertEquals(1, encoder.getKeyframeCount());
+        assertEquals(3, encoder.getDeltaCount());
+    }
+
+    @Test
+    public void sendsPeriodicKeyframes() throws Exception {
+        CellDeltaEncoder encoder = new CellDeltaEncoder(3);
+        for (int i = 0; i < 7; i++) {
+            encoder.encode(primary(-90 - i));
+        }
+        assertEquals(3, encoder.getKeyframeCount()); // Messages 1, 4 and 7
+    }
+
+    @Test
+    public void gapIsDetectedAndResyncRecovers() throws Exception {
+        CellDeltaEncoder encoder = new CellDeltaEncoder(100);
+        CellDeltaDecoder decoder = new CellDeltaDecoder();
+        decoder.decode(encoder.encode(primary(-90)));
+        encoder.encode(primary(-91)); // Lost in transit
+
+        assertNull(decoder.decode(encoder.encode(primary(-92))));
+        assertEquals(1, decoder.getGapCount());
+        assertTrue(decoder.isResyncNeeded());
+
+        encoder.requestKeyframe();
+        assertSameJson(primary(-93), decoder.decode(encoder.encode(primary(-93))));
+        assertFalse(decoder.isResyncNeeded());
+    }
+
+    @Test
+    public void acknowledgedBaseToleratesLoss() throws Exception {
+        CellDeltaEncoder encoder = new CellDeltaEncoder(100);
+        CellDeltaDecoder decoder = new CellDeltaDecoder();
+        decoder.decode(encoder.encode(primary(-90)));
+        encoder.onAck(1);
+        encoder.encode(primary(-91)); // Lost in transit
+
+        String next = encoder.encode(primary(-92));
+        assertEquals(1, new JSONObject(next).getInt("base"));
+        assertSameJson(primary(-92), decoder.decode(next));
+    }
+
+    @Test
+    public void unsentFrameIsNeverUsedAsBase() throws Exception {
+        CellDeltaEncoder encoder = new CellDeltaEncoder(100);
+        CellDeltaDecoder decoder = new CellDeltaDecoder();
+        decoder.decode(encoder.encode(primary(-90)));
+        encoder.prepare(primary(-91)); // Rejected by the send budget, spooled in full
+
+        String next = encoder.encode(primary(-92));
+        assertEquals(1, new JSONObject(next).getInt("base"));
+        assertSameJson(primary(-92), decoder.decode(next));
+        assertEquals(1, encoder.getDeltaCount());
+    }
+
+    @Test
+    public void keyframeRequestIsKeptUntilAKeyframeIsSent() throws Exception {
+        CellDeltaEncoder encoder = new CellDeltaEncoder(100);
+        encoder.encode(primary(-90));
+        encoder.requestKeyframe();
+        CellDeltaEncoder.Frame unsent = encoder.prepare(primary(-91));
+        assertEquals(CellDeltaCodec.TYPE_KEYFRAME, new JSONObject(unsent.getText()).getString("type"));
+
+        String next = encoder.encode(primary(-92));
+        assertEquals(CellDeltaCodec.TYPE_KEYFRAME, new JSONObject(next).getString("type"));
+    }
+
+    @Test
+    public void plainMessagesPassThrough() throws Exception {
+        assertEquals(primary(-80), new CellDeltaDecoder().decode(primary(-80)));
+    }
+}
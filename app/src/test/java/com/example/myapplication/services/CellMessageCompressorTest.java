@@ -0,0 +1,79 @@
+package com.example.myapplication.services;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+
+import okio.ByteString;
+
+import static org.junit.Assert.*;
+
+// Round-trips recorded cell messages and compares the compression ratio with plain deflate.
+public class CellMessageCompressorTest {
+
+    private static List<String> loadSamples() throws Exception {
+        List<String> samples = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                CellMessageCompressorTest.class.getResourceAsStream("/cell_samples.jsonl"), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    samples.add(line);
+                }
+            }
+        }
+        return samples;
+    }
+
+    private static int plainDeflateSize(byte[] input) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        deflater.setInput(input);
+        deflater.finish();
+        byte[] out = new byte[input.length * 2 + 64];
+        int size = 0;
+        while (!deflater.finished()) {
+            size += deflater.deflate(out, size, out.length - size);
+        }
+        deflater.end();
+        return size + CellMessageCompressor.FRAME_HEADER_SIZE;
+    }
+
+    @Test
+    public void roundTripsRecordedSamples() throws Exception {
+        CellMessageCompressor compressor = new CellMessageCompressor();
+        for (String sample : loadSamples()) {
+            ByteString frame = compressor.compress(sample);
+            assertEquals(CellMessageCompressor.FLAG_DEFLATE, frame.getByte(0));
+            assertEquals(sample, compressor.decompress(frame));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownDictionaryVersion() {
+        CellMessageCompressor compressor = new CellMessageCompressor();
+        byte[] frame = compressor.compress("{\"type\":\"primary_cell\"}").toByteArray();
+        frame[1] = 9;
+        compressor.decompress(ByteString.of(frame));
+    }
+
+    @Test
+    public void dictionaryBeatsPlainDeflate() throws Exception {
+        CellMessageCompressor compressor = new CellMessageCompressor();
+        long raw = 0;
+        long plain = 0;
+        for (String sample : loadSamples()) {
+            compressor.compress(sample);
+            byte[] bytes = sample.getBytes(StandardCharsets.UTF_8);
+            raw += bytes.length;
+            plain += plainDeflateSize(bytes);
+        }
+
+        assertTrue(compressor.getCompressionRatio() < (double) plain / raw);
+        assertTrue(compressor.getCompressionRatio() < 0.6);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.myapplication.services;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ConflatingQueueTest {
+    @Test
+    public void newerValueReplacesUnsentOneInPlace() {
+        ConflatingQueue<String> queue = new ConflatingQueue<>();
+        assertFalse(queue.offer("sims:1", "primary t=0"));
+        assertFalse(queue.offer("neighbors", "neighbors t=1"));
+        assertTrue(queue.offer("sims:1", "primary t=3"));
+        assertTrue(queue.offer("sims:1", "primary t=6"));
+
+        assertEquals(2, queue.size());
+        assertEquals(2, queue.getConflatedCount());
+        assertEquals("primary t=6", queue.poll());
+        assertEquals("neighbors t=1", queue.poll());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void sentValueIsNotReplaced() {
+        ConflatingQueue<String> queue = new ConflatingQueue<>();
+        queue.offer("sims:1", "a");
+        queue.poll();
+        assertFalse(queue.offer("sims:1", "b"));
+        assertEquals("b", queue.poll());
+    }
+
+    @Test
+    public void strictModeKeepsEveryValue() {
+        ConflatingQueue<String> queue = new ConflatingQueue<>();
+        queue.setStrict(true);
+        queue.offer("sims:1", "a");
+        queue.offer("sims:1", "b");
+        queue.setStrict(false);
+        assertTrue(queue.offer("sims:1", "c")); // Replaces the newest, "b"
+
+        assertEquals(1, queue.getConflatedCount());
+        assertEquals("a", queue.poll());
+        assertEquals("c", queue.poll());
+        assertNull(queue.poll());
+    }
+}
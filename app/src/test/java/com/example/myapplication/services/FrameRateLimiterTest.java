@@ -0,0 +1,71 @@
+package com.example.myapplication.services;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class FrameRateLimiterTest {
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void fractionalRate_admitsExpectedFrameCount() {
+        FrameRateLimiter limiter = new FrameRateLimiter(2.5, 1);
+        int sent = 0;
+        for (long t = 0; t < 10_000; t += 33) { // 30 fps camera for 10 s
+            if (limiter.tryAcquire(t * MS)) {
+                sent++;
+            }
+        }
+        assertTrue("sent " + sent, sent >= 24 && sent <= 26);
+    }
+
+    @Test
+    public void burst_isAvailableAfterIdle() {
+        FrameRateLimiter limiter = new FrameRateLimiter(2.5, 3);
+        assertTrue(limiter.tryAcquire(0));
+        assertFalse(limiter.tryAcquire(MS));
+        // Idle for 2 s: bucket refills to the burst size of 3, not 5.
+        long t = 2000 * MS;
+        assertTrue(limiter.tryAcquire(t));
+        assertTrue(limiter.tryAcquire(t));
+        assertTrue(limiter.tryAcquire(t));
+        assertFalse(limiter.tryAcquire(t));
+    }
+
+    @Test
+    public void canAcquire_doesNotTakeToken() {
+        FrameRateLimiter limiter = new FrameRateLimiter(1, 1);
+        assertTrue(limiter.canAcquire(0));
+        assertTrue(limiter.canAcquire(0));
+        assertTrue(limiter.tryAcquire(0));
+        assertFalse(limiter.canAcquire(500 * MS));
+        assertTrue(limiter.canAcquire(1000 * MS));
+        assertTrue(limiter.tryAcquire(1000 * MS));
+    }
+
+    @Test
+    public void concurrentCallers_neverExceedBudget() throws InterruptedException {
+        FrameRateLimiter limiter = new FrameRateLimiter(1, 5);
+        AtomicInteger admitted = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    if (limiter.tryAcquire(0)) {
+                        admitted.incrementAndGet();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(1, admitted.get());
+    }
+}
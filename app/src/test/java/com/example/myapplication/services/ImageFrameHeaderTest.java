@@ -0,0 +1,50 @@
+package com.example.myapplication.services;
+
+import org.junit.Test;
+
+import okio.ByteString;
+
+import static org.junit.Assert.*;
+
+public class ImageFrameHeaderTest {
+    @Test
+    public void frame_roundTripsHeaderAndPayload() {
+        byte[] jpeg = new byte[5000];
+        for (int i = 0; i < jpeg.length; i++) {
+            jpeg[i] = (byte) i;
+        }
+        ImageFrameHeader header = new ImageFrameHeader(ImageFrameHeader.CODEC_JPEG, 42, 1_700_000_000_123L, 640, 480, 90);
+
+        ByteString frame = header.toFrame(jpeg, 4000);
+        assertEquals(ImageFrameHeader.SIZE + 4000, frame.size());
+
+        ImageFrameHeader decoded = ImageFrameHeader.decode(frame);
+        assertEquals(ImageFrameHeader.CODEC_JPEG, decoded.getCodec());
+        assertEquals(42, decoded.getSequence());
+        assertEquals(1_700_000_000_123L, decoded.getCaptureTimeMs());
+        assertEquals(640, decoded.getWidth());
+        assertEquals(480, decoded.getHeight());
+        assertEquals(90, decoded.getRotation());
+        assertEquals(ByteString.of(jpeg, 0, 4000), ImageFrameHeader.payload(frame));
+    }
+
+    @Test
+    public void header_hasFixedSize() {
+        byte[] buffer = new byte[ImageFrameHeader.SIZE];
+        new ImageFrameHeader(ImageFrameHeader.CODEC_JPEG, -1, 0, 65535, 65535, 270).writeTo(buffer, 0);
+        ImageFrameHeader decoded = ImageFrameHeader.decode(ByteString.of(buffer));
+        assertEquals(-1, decoded.getSequence());
+        assertEquals(65535, decoded.getWidth());
+        assertEquals(270, decoded.getRotation());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decode_rejectsBadMagic() {
+        ImageFrameHeader.decode(ByteString.of(new byte[ImageFrameHeader.SIZE]));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decode_rejectsShortFrame() {
+        ImageFrameHeader.decode(ByteString.of(new byte[3]));
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.myapplication.services;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyTrackerTest {
+    private static final long MS = 1_000_000L;
+
+    // Server clock 500 ms ahead, 20 ms each way, 5 ms server processing.
+    private static void exchange(LatencyTracker tracker, long sentMs, long oneWayMs) throws Exception {
+        int id = new JSONObject(tracker.createPing(sentMs, sentMs * MS)).getInt("id");
+        long t1 = sentMs + oneWayMs + 500;
+        long t2 = t1 + 5;
+        long receivedMs = sentMs + 2 * oneWayMs + 5;
+        assertTrue(tracker.onPong(id, t1, t2, receivedMs, receivedMs * MS));
+    }
+
+    @Test
+    public void rttExcludesServerTimeAndOffsetMatchesServerClock() throws Exception {
+        LatencyTracker tracker = new LatencyTracker();
+        assertFalse(tracker.isOffsetKnown());
+        assertEquals(-1, tracker.getRttPercentileMs(50), 0);
+
+        exchange(tracker, 1000, 20);
+        assertEquals(40, tracker.getRttPercentileMs(50), 0.001);
+        assertEquals(500, tracker.getClockOffsetMs());
+        assertTrue(tracker.isOffsetKnown());
+    }
+
+    @Test
+    public void offsetComesFromLowestRttSample() throws Exception {
+        LatencyTracker tracker = new LatencyTracker();
+        exchange(tracker, 1000, 20);
+        // Asymmetric slow exchange: 200 ms out, 20 ms back, skews its offset by 90 ms
+        int id = new JSONObject(tracker.createPing(2000, 2000 * MS)).getInt("id");
+        assertTrue(tracker.onPong(id, 2000 + 200 + 500, 2705, 2225, 2225 * MS));
+
+        assertEquals(500, tracker.getClockOffsetMs());
+        assertEquals(40, tracker.getOffsetRttMs(), 0.001);
+        assertEquals(220, tracker.getRttPercentileMs(99), 0.001);
+    }
+
+    @Test
+    public void unansweredOlderPingsCountAsLost() throws Exception {
+        LatencyTracker tracker = new LatencyTracker();
+        tracker.createPing(1000, 1000 * MS);
+        tracker.createPing(2000, 2000 * MS);
+        exchange(tracker, 3000, 10);
+        assertEquals(2, tracker.getLostPingCount());
+        assertFalse(tracker.onPong(1, 0, 0, 4000, 4000 * MS));
+    }
+
+    @Test
+    public void timesOutOnlyOnceTheServerHasAnswered() throws Exception {
+        LatencyTracker tracker = new LatencyTracker();
+        tracker.createPing(1000, 1000 * MS);
+        assertFalse(tracker.hasTimedOut(60_000 * MS, 15_000 * MS)); // Server may not speak the protocol
+
+        tracker.clearPending();
+        exchange(tracker, 2000, 10);
+        tracker.createPing(3000, 3000 * MS);
+        assertFalse(tracker.hasTimedOut(10_000 * MS, 15_000 * MS));
+        assertTrue(tracker.hasTimedOut(20_000 * MS, 15_000 * MS));
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.myapplication.services;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MessageBatcherTest {
+
+    @Test
+    public void flushesOnCountWithTimestamps() {
+        MessageBatcher batcher = new MessageBatcher(3, 64 * 1024);
+        assertNull(batcher.add("{\"a\":1}", 1000));
+        assertNull(batcher.add("{\"a\":2}", 2000));
+        String batch = batcher.add("{\"a\":3}", 3000);
+
+        assertEquals("{\"type\":\"batch\",\"count\":3,\"samples\":["
+                + "{\"timestamp\":1000,\"data\":{\"a\":1}},"
+                + "{\"timestamp\":2000,\"data\":{\"a\":2}},"
+                + "{\"timestamp\":3000,\"data\":{\"a\":3}}]}", batch);
+        assertEquals(0, batcher.getPendingCount());
+        assertNull(batcher.flush());
+    }
+
+    @Test
+    public void sizeLimitSendsPendingBatchBeforeTheNewSample() {
+        MessageBatcher batcher = new MessageBatcher(100, 80);
+        assertNull(batcher.add("{\"sample\":\"first\"}", 1));
+        String batch = batcher.add("{\"sample\":\"second, long enough to overflow\"}", 2);
+
+        assertTrue(batch.contains("first"));
+        assertFalse(batch.contains("second"));
+        assertEquals(1, batcher.getPendingCount());
+        assertTrue(batcher.flush().contains("\"count\":1"));
+        assertEquals(2, batcher.getBatchesFlushed());
+        assertEquals(2, batcher.getSamplesBatched());
+    }
+
+    @Test
+    public void deltaSamplesKeepTheirFullJson() throws Exception {
+        CellDeltaEncoder encoder = new CellDeltaEncoder();
+        MessageBatcher batcher = new MessageBatcher(2, 64 * 1024);
+        CellDeltaEncoder.Frame first = encoder.prepare("{\"type\":\"t\",\"a\":1}");
+        assertNull(batcher.add("{\"type\":\"t\",\"a\":1}", first, 1000));
+        MessageBatcher.Batch batch = batcher.add("{\"type\":\"t\",\"a\":2}", null, 2000);
+
+        assertTrue(batch.text.contains(first.getText()));
+        assertEquals("{\"type\":\"batch\",\"count\":2,\"samples\":["
+                + "{\"timestamp\":1000,\"data\":{\"type\":\"t\",\"a\":1}},"
+                + "{\"timestamp\":2000,\"data\":{\"type\":\"t\",\"a\":2}}]}", batch.fullText);
+        assertEquals(1, batch.deltas.size());
+        assertSame(first, batch.deltas.get(0));
+        assertNull(batcher.flushBatch());
+    }
+}
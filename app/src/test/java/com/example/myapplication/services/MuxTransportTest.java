@@ -0,0 +1,127 @@
+package com.example.myapplication.services;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okio.ByteString;
+
+import static org.junit.Assert.*;
+
+// Runs the multiplexed framing over a real local WebSocket server and checks that it needs a
+// single handshake where the separate transport needs three.
+public class MuxTransportTest {
+    private MockWebServer server;
+    private OkHttpClient client;
+    private final BlockingQueue<ByteString> received = new LinkedBlockingQueue<>();
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        client = new OkHttpClient();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.dispatcher().executorService().shutdown();
+        server.shutdown();
+    }
+
+    private void enqueueUpgrades(int count) {
+        for (int i = 0; i < count; i++) {
+            server.enqueue(new MockResponse().withWebSocketUpgrade(new WebSocketListener() {
+                @Override
+                public void onMessage(WebSocket webSocket, ByteString bytes) {
+                    received.add(bytes);
+                }
+
+                @Override
+                public void onClosing(WebSocket webSocket, int code, String reason) {
+                    webSocket.close(code, null);
+                }
+            }));
+        }
+    }
+
+    private List<WebSocket> open(String... paths) throws InterruptedException {
+        CountDownLatch opened = new CountDownLatch(paths.length);
+        List<WebSocket> sockets = new ArrayList<>();
+        for (String path : paths) {
+            Request request = new Request.Builder().url(server.url(path)).build();
+            sockets.add(client.newWebSocket(request, new WebSocketListener() {
+                @Override
+                public void onOpen(WebSocket webSocket, Response response) {
+                    opened.countDown();
+                }
+            }));
+        }
+        assertTrue(opened.await(10, TimeUnit.SECONDS));
+        return sockets;
+    }
+
+    @Test
+    public void serverDemultiplexesAllChannels() throws Exception {
+        enqueueUpgrades(1);
+        WebSocket mux = open("/ws/mux").get(0);
+
+        ByteString image = ByteString.of(new byte[]{(byte) 0xFF, (byte) 0xD8, 0, 1, 2});
+        mux.send(MuxCodec.encodeText(MuxCodec.CHANNEL_PRIMARY, "{\"type\":\"primary_cell\"}"));
+        mux.send(MuxCodec.encodeText(MuxCodec.CHANNEL_NEIGHBORS, "{\"type\":\"neighboring_cells\"}"));
+        mux.send(MuxCodec.encodeBinary(MuxCodec.CHANNEL_IMAGE, image));
+
+        ByteString primary = received.poll(5, TimeUnit.SECONDS);
+        assertEquals(MuxCodec.CHANNEL_PRIMARY, MuxCodec.channel(primary));
+        assertEquals("{\"type\":\"primary_cell\"}", MuxCodec.text(primary));
+
+        ByteString neighbors = received.poll(5, TimeUnit.SECONDS);
+        assertEquals(MuxCodec.CHANNEL_NEIGHBORS, MuxCodec.channel(neighbors));
+        assertEquals("{\"type\":\"neighboring_cells\"}", MuxCodec.text(neighbors));
+
+        ByteString frame = received.poll(5, TimeUnit.SECONDS);
+        assertEquals(MuxCodec.CHANNEL_IMAGE, MuxCodec.channel(frame));
+        assertTrue(MuxCodec.isBinary(frame));
+        assertEquals(image, MuxCodec.payload(frame));
+
+        mux.close(1000, null);
+    }
+
+    @Test
+    public void multiplexedSetup_needsOneHandshake() throws Exception {
+        enqueueUpgrades(3);
+        List<WebSocket> separate = open("/ws/data1", "/ws/data2", "/ws/image");
+        assertEquals(3, server.getRequestCount());
+
+        enqueueUpgrades(1);
+        WebSocket mux = open("/ws/mux").get(0);
+        assertEquals(4, server.getRequestCount());
+        for (int i = 0; i < 3; i++) {
+            assertTrue(server.takeRequest().getPath().startsWith("/ws/"));
+        }
+        assertEquals("/ws/mux", server.takeRequest().getPath());
+
+        for (WebSocket socket : separate) {
+            socket.close(1000, null);
+        }
+        mux.close(1000, null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void text_rejectsBinaryFrame() {
+        MuxCodec.text(MuxCodec.encodeBinary(MuxCodec.CHANNEL_IMAGE, ByteString.EMPTY));
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.myapplication.services;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class PipelineStageTest {
+    @Test
+    public void queue_dropsOldestWhenFull() {
+        DropOldestQueue<Integer> queue = new DropOldestQueue<>(2);
+        assertNull(queue.offer(1));
+        assertNull(queue.offer(2));
+        assertEquals(Integer.valueOf(1), queue.offer(3));
+        assertEquals(1, queue.getDroppedCount());
+        assertEquals(Integer.valueOf(2), queue.poll());
+        assertEquals(Integer.valueOf(3), queue.poll());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void stage_processesInOrderAndReportsDrops() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> processed = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> dropped = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(3);
+
+        PipelineStage<Integer> stage = new PipelineStage<>("test", 2, item -> {
+            if (item == 0) {
+                blocked.countDown();
+                awaitQuietly(release);
+            }
+            processed.add(item);
+            done.countDown();
+        }, dropped::add);
+
+        stage.offer(0);
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i <= 4; i++) {
+            stage.offer(i); // Queue holds two while item 0 is stuck in processing
+        }
+        assertEquals(2, stage.getStats().getQueueDepth());
+        release.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        stage.shutdown();
+        assertEquals(Arrays.asList(0, 3, 4), processed);
+        assertEquals(Arrays.asList(1, 2), dropped);
+        assertEquals(2, stage.getStats().getDropped());
+        assertEquals(3, stage.getStats().getProcessed());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
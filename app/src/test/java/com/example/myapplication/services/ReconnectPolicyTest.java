@@ -0,0 +1,52 @@
+package com.example.myapplication.services;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ReconnectPolicyTest {
+    @Test
+    public void delays_areJitteredWithinExponentialBound() {
+        ReconnectPolicy policy = new ReconnectPolicy(1000, 8000, 100, 60_000, new Random(1));
+        long[] bounds = {1000, 2000, 4000, 8000, 8000, 8000};
+        for (long bound : bounds) {
+            long delay = policy.onFailure(0);
+            assertTrue(delay >= 0 && delay < bound);
+        }
+        assertEquals(ReconnectPolicy.CircuitState.CLOSED, policy.getState());
+    }
+
+    @Test
+    public void circuit_opensAfterThresholdAndHalfOpensOnProbe() {
+        ReconnectPolicy policy = new ReconnectPolicy(1000, 8000, 3, 60_000, new Random(1));
+        policy.onFailure(0);
+        policy.onFailure(0);
+        assertTrue(policy.onFailure(0) >= 60_000);
+        assertEquals(ReconnectPolicy.CircuitState.OPEN, policy.getState());
+
+        policy.onAttempt();
+        assertEquals(ReconnectPolicy.CircuitState.HALF_OPEN, policy.getState());
+        assertTrue(policy.onFailure(0) >= 60_000); // Failed probe re-opens
+        assertEquals(ReconnectPolicy.CircuitState.OPEN, policy.getState());
+
+        policy.onAttempt();
+        policy.onConnected(0);
+        assertEquals(ReconnectPolicy.CircuitState.CLOSED, policy.getState());
+        assertEquals(0, policy.getConsecutiveFailures());
+        assertEquals(2, policy.getAttempts());
+    }
+
+    @Test
+    public void downtime_isAccumulatedPerOutage() {
+        ReconnectPolicy policy = new ReconnectPolicy();
+        policy.onFailure(1_000);
+        policy.onFailure(3_000);
+        assertEquals(4_000, policy.getDowntimeMs(5_000));
+        policy.onConnected(6_000);
+        policy.onFailure(10_000);
+        policy.onConnected(10_500);
+        assertEquals(5_500, policy.getDowntimeMs(20_000));
+    }
+}
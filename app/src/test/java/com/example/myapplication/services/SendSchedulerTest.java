@@ -0,0 +1,63 @@
+package com.example.myapplication.services;
+
+import com.example.myapplication.metrics.MetricsRegistry;
+import com.example.myapplication.metrics.MetricsSnapshot;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SendSchedulerTest {
+    private static final long MS = 1_000_000L;
+
+    private static long counter(MetricsRegistry metrics, String name) {
+        MetricsSnapshot snapshot = metrics.snapshot();
+        return snapshot.getCounters().get(name);
+    }
+
+    @Test
+    public void imagesWaitForCellBacklogAndAreDroppedWhenItPersists() {
+        MetricsRegistry metrics = new MetricsRegistry();
+        SendScheduler scheduler = new SendScheduler(metrics, 250 * MS);
+
+        assertEquals(SendScheduler.Decision.DEFER, scheduler.admitImage("image", 50_000, 600, 0, 0));
+        assertEquals(SendScheduler.Decision.SEND, scheduler.admitImage("image", 50_000, 0, 0, 20 * MS));
+        assertEquals(1, counter(metrics, "scheduler.image.deferred"));
+
+        assertEquals(SendScheduler.Decision.DEFER, scheduler.admitImage("image", 50_000, 600, 100 * MS, 300 * MS));
+        assertEquals(SendScheduler.Decision.DROP, scheduler.admitImage("image", 50_000, 600, 100 * MS, 350 * MS));
+        assertEquals(1, counter(metrics, "scheduler.image.dropped_for_cells"));
+        assertEquals(1, counter(metrics, "scheduler.image.sent"));
+    }
+
+    @Test
+    public void budgetLimitsBytesPerSecond() {
+        MetricsRegistry metrics = new MetricsRegistry();
+        SendScheduler scheduler = new SendScheduler(metrics, 250 * MS);
+        scheduler.setBudget("data1", 1000);
+        long start = System.nanoTime(); // Bucket starts full
+
+        assertTrue(scheduler.admitCell("data1", 600, start));
+        assertFalse(scheduler.admitCell("data1", 600, start));
+        assertTrue(scheduler.admitCell("data1", 600, start + 200 * MS)); // 400 + 200 refilled
+        assertTrue(scheduler.admitCell("data2", 600, start)); // No budget
+        assertEquals(1, counter(metrics, "scheduler.cell.over_budget"));
+        assertEquals(0, counter(metrics, "scheduler.cell.sent")); // Counted once the socket takes it
+        scheduler.onCellSent();
+        assertEquals(1, counter(metrics, "scheduler.cell.sent"));
+    }
+
+    @Test
+    public void oversizedMessageNeedsFullBucketAndLeavesDebt() {
+        SendScheduler scheduler = new SendScheduler(new MetricsRegistry(), 250 * MS);
+        scheduler.setBudget("image", 10_000);
+        long start = System.nanoTime(); // Bucket starts full
+
+        assertEquals(SendScheduler.Decision.SEND, scheduler.admitImage("image", 30_000, 0, start, start));
+        assertEquals(SendScheduler.Decision.DEFER, scheduler.admitImage("image", 30_000, 0, start, start + 100 * MS));
+        assertEquals(SendScheduler.Decision.DROP, scheduler.admitImage("image", 30_000, 0, start, start + 1000 * MS));
+        assertEquals(SendScheduler.Decision.SEND, scheduler.admitImage("image", 30_000, 0, start + 3000 * MS, start + 3000 * MS));
+
+        scheduler.setBudget("image", 0);
+        assertEquals(0, scheduler.getBudget("image"));
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.myapplication.services;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TelemetrySpoolTest {
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("telemetry", ".spool");
+        file.delete();
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void messagesSurviveReopeningInOrder() throws Exception {
+        TelemetrySpool spool = new TelemetrySpool(file, 1024);
+        spool.append(MuxCodec.CHANNEL_PRIMARY, "{\"a\":1}");
+        spool.append(MuxCodec.CHANNEL_NEIGHBORS, "{\"b\":2}");
+        spool.append(MuxCodec.CHANNEL_PRIMARY, "{\"c\":3}");
+        spool.remove(spool.peek(1));
+        spool.close();
+
+        TelemetrySpool reopened = new TelemetrySpool(file, 1024);
+        List<TelemetrySpool.Message> messages = reopened.peek(10);
+        assertEquals(2, messages.size());
+        assertEquals(MuxCodec.CHANNEL_NEIGHBORS, messages.get(0).channel);
+        assertEquals("{\"b\":2}", messages.get(0).text);
+        assertEquals("{\"c\":3}", messages.get(1).text);
+        reopened.close();
+    }
+
+    @Test
+    public void evictsOldestWhenFullAndWrapsAround() throws Exception {
+        TelemetrySpool spool = new TelemetrySpool(file, 100);
+        for (int i = 0; i < 20; i++) {
+            assertTrue(spool.append(MuxCodec.CHANNEL_PRIMARY, "sample-" + (i % 10))); // 17 bytes per record
+        }
+        assertEquals(5, spool.getPendingCount());
+        assertEquals(15, spool.getDroppedCount());
+        List<TelemetrySpool.Message> messages = spool.peek(10);
+        assertEquals("sample-5", messages.get(0).text);
+        assertEquals("sample-9", messages.get(4).text);
+
+        assertFalse(spool.append(MuxCodec.CHANNEL_PRIMARY, new String(new char[100])));
+        spool.close();
+    }
+
+    @Test
+    public void uncommittedWriteIsInvisibleAfterCrash() throws Exception {
+        TelemetrySpool spool = new TelemetrySpool(file, 1024);
+        spool.append(MuxCodec.CHANNEL_PRIMARY, "committed");
+        long committedTail = spool.getUsedBytes();
+        spool.close();
+
+        // A crash after writing record bytes but before the header commit
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.seek(TelemetrySpool.DATA_OFFSET + committedTail);
+            raw.write(new byte[]{0, 0, 0, 5, 1, 9, 9, 9, 9, 'h', 'a', 'l', 'f'});
+        }
+
+        TelemetrySpool reopened = new TelemetrySpool(file, 1024);
+        assertEquals(1, reopened.getPendingCount());
+        reopened.append(MuxCodec.CHANNEL_NEIGHBORS, "next");
+        List<TelemetrySpool.Message> messages = reopened.peek(10);
+        assertEquals(2, messages.size());
+        assertEquals("committed", messages.get(0).text);
+        assertEquals("next", messages.get(1).text);
+        reopened.close();
+    }
+
+    @Test
+    public void tornHeaderFallsBackToPreviousSlot() throws Exception {
+        TelemetrySpool spool = new TelemetrySpool(file, 1024);
+        spool.append(MuxCodec.CHANNEL_PRIMARY, "first");  // Generation 1, slot 1
+        spool.append(MuxCodec.CHANNEL_PRIMARY, "second"); // Generation 2, slot 0
+        spool.close();
+
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.seek(16 + 8); // Head of slot 0
+            raw.writeLong(12345);
+        }
+
+        TelemetrySpool reopened = new TelemetrySpool(file, 1024);
+        List<TelemetrySpool.Message> messages = reopened.peek(10);
+        assertEquals(1, messages.size());
+        assertEquals("first", messages.get(0).text);
+        reopened.close();
+    }
+
+    @Test
+    public void corruptRecordEndsTheLog() throws Exception {
+        TelemetrySpool spool = new TelemetrySpool(file, 1024);
+        spool.append(MuxCodec.CHANNEL_PRIMARY, "good");
+        spool.append(MuxCodec.CHANNEL_PRIMARY, "flipped");
+        spool.append(MuxCodec.CHANNEL_PRIMARY, "after");
+        spool.close();
+
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.seek(TelemetrySpool.DATA_OFFSET + TelemetrySpool.RECORD_HEADER_SIZE + 4 + TelemetrySpool.RECORD_HEADER_SIZE);
+            raw.write('F');
+        }
+
+        TelemetrySpool reopened = new TelemetrySpool(file, 1024);
+        assertEquals(1, reopened.peek(10).size());
+        assertEquals(1, reopened.getPendingCount());
+        assertEquals(2, reopened.getDroppedCount());
+        reopened.close();
+    }
+
+    @Test
+    public void removeSkipsRecordsEvictedSincePeek() throws Exception {
+        TelemetrySpool spool = new TelemetrySpool(file, 100);
+        for (int i = 0; i < 5; i++) {
+            spool.append(MuxCodec.CHANNEL_PRIMARY, "sample-" + i); // 17 bytes per record
+        }
+        List<TelemetrySpool.Message> peeked = spool.peek(3);
+        spool.append(MuxCodec.CHANNEL_PRIMARY, "sample-5"); // Evicts sample-0
+        spool.append(MuxCodec.CHANNEL_PRIMARY, "sample-6"); // Evicts sample-1
+
+        spool.remove(peeked);
+
+        List<TelemetrySpool.Message> messages = spool.peek(10);
+        assertEquals(4, messages.size());
+        assertEquals("sample-3", messages.get(0).text);
+        assertEquals("sample-6", messages.get(3).text);
+        assertEquals(4, spool.getPendingCount());
+        assertEquals(2, spool.getDroppedCount());
+        spool.close();
+    }
+
+    @Test
+    public void filteredChannelsStayQueuedInOrder() throws Exception {
+        TelemetrySpool spool = new TelemetrySpool(file, 1024);
+        spool.append(MuxCodec.CHANNEL_PRIMARY, "p1");
+        spool.append(MuxCodec.CHANNEL_NEIGHBORS, "n1");
+        spool.append(MuxCodec.CHANNEL_PRIMARY, "p2");
+        spool.append(MuxCodec.CHANNEL_NEIGHBORS, "n2");
+
+        List<TelemetrySpool.Message> neighbors = spool.peek(10, channel -> channel == MuxCodec.CHANNEL_NEIGHBORS);
+        assertEquals(2, neighbors.size());
+        assertEquals("n1", neighbors.get(0).text);
+        spool.remove(neighbors);
+        assertEquals(2, spool.getPendingCount());
+        spool.close();
+
+        TelemetrySpool reopened = new TelemetrySpool(file, 1024);
+        List<TelemetrySpool.Message> messages = reopened.peek(10);
+        assertEquals(2, messages.size());
+        assertEquals("p1", messages.get(0).text);
+        assertEquals("p2", messages.get(1).text);
+        reopened.remove(messages);
+        assertEquals(0, reopened.getPendingCount());
+        assertEquals(0, reopened.getUsedBytes());
+        reopened.close();
+    }
+}
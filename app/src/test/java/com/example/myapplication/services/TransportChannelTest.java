@@ -0,0 +1,112 @@
+package com.example.myapplication.services;
+
+import org.junit.Test;
+
+import okhttp3.Request;
+import okhttp3.WebSocket;
+import okio.ByteString;
+
+import static org.junit.Assert.*;
+
+public class TransportChannelTest {
+
+    private static class FakeSocket implements WebSocket {
+        int sent;
+        boolean closed;
+        boolean cancelled;
+
+        @Override
+        public Request request() {
+            return new Request.Builder().url("http://localhost/").build();
+        }
+
+        @Override
+        public long queueSize() {
+            return 10;
+        }
+
+        @Override
+        public boolean send(String text) {
+            sent++;
+            return true;
+        }
+
+        @Override
+        public boolean send(ByteString bytes) {
+            sent++;
+            return true;
+        }
+
+        @Override
+        public boolean close(int code, String reason) {
+            closed = true;
+            return true;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+
+    @Test
+    public void sendsOnlyWhileOpen() {
+        TransportChannel channel = new TransportChannel("data1", "/ws/data1");
+        FakeSocket socket = new FakeSocket();
+
+        assertNull(channel.beginAttempt(socket));
+        assertEquals(ChannelState.CONNECTING, channel.getState());
+        assertTrue(channel.isActive());
+        assertFalse(channel.send("early"));
+
+        assertTrue(channel.markOpen(socket));
+        assertTrue(channel.send("h\u00e9llo"));
+        assertTrue(channel.send(ByteString.of((byte) 1, (byte) 2)));
+
+        ChannelStats stats = channel.snapshot();
+        assertEquals(ChannelState.OPEN, stats.getState());
+        assertEquals(2, stats.getMessagesSent());
+        assertEquals(6 + 2, stats.getBytesSent()); // UTF-8 length of the text
+        assertEquals(10, stats.getQueueBytes());
+        assertEquals(2, socket.sent);
+    }
+
+    @Test
+    public void ignoresCallbacksFromSupersededSockets() {
+        TransportChannel channel = new TransportChannel("image", "/ws/image");
+        FakeSocket first = new FakeSocket();
+        FakeSocket second = new FakeSocket();
+
+        channel.beginAttempt(first);
+        assertSame(first, channel.beginAttempt(second));
+
+        assertFalse(channel.markOpen(first));
+        assertFalse(channel.markFailed(first, "late failure"));
+        assertEquals(ChannelState.CONNECTING, channel.getState());
+
+        assertTrue(channel.markOpen(second));
+        assertFalse(channel.markOpen(second)); // Only from CONNECTING
+        assertTrue(channel.markFailed(second, "reset"));
+        assertEquals(ChannelState.FAILED, channel.getState());
+        assertFalse(channel.isActive());
+        assertEquals("reset", channel.snapshot().getLastError());
+    }
+
+    @Test
+    public void detachCancelsPendingAndClosesOpenSockets() {
+        TransportChannel channel = new TransportChannel("mux", "/ws/mux");
+        FakeSocket pending = new FakeSocket();
+        channel.beginAttempt(pending);
+        channel.detach(1000, "bye");
+        assertTrue(pending.cancelled);
+        assertEquals(ChannelState.IDLE, channel.getState());
+
+        FakeSocket open = new FakeSocket();
+        channel.beginAttempt(open);
+        channel.markOpen(open);
+        channel.detach(1000, "bye");
+        assertTrue(open.closed);
+        assertFalse(open.cancelled);
+        assertFalse(channel.markClosed(open)); // Already detached
+    }
+}